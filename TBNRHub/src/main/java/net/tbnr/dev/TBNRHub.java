@@ -50,6 +50,7 @@ public final class TBNRHub extends ModularPlugin {
         matrixManager = new ServerSignMatrixManager((CMongoDatabase) Core.getInstance().getCDatabase());
         matrixManager.reload();
         spawnManager = new SpawnManager(Bukkit.getWorlds().get(0), (CMongoDatabase) Core.getInstance().getCDatabase());
+        TBNRNetwork.getInstance().getLeaderboardManager().startReconciling();
         registerCommand(new ClearChatCommand());
         registerCommand(new ParkourCommand());
         registerCommand(new AddWarpCommand());
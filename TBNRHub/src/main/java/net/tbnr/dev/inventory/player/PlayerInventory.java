@@ -20,15 +20,15 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.Sound;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 public final class PlayerInventory extends ControlledInventory implements Listener {
@@ -36,33 +36,92 @@ public final class PlayerInventory extends ControlledInventory implements Listen
         Bukkit.getPluginManager().registerEvents(this, TBNRHub.getInstance());
     }
 
+    private static final String LOBBY_CHOOSER_TITLE = ChatColor.GREEN + ChatColor.BOLD.toString() + "LOBBIES";
+
     private final InventoryGraphicalInterface warpStarMenu = getNewWarpMenu();
     private final InventoryGraphicalInterface lobbyChooser = getNewLobbyChooser();
+    private final Map<String, LobbyButton> lobbyButtons = new LinkedHashMap<>();
+    private final Map<String, Integer> serverNumbers = new HashMap<>();
+    private final Set<CPlayer> lobbyChooserViewers = new HashSet<>();
 
     {
         if (Core.getNetworkManager() != null) {
             Bukkit.getScheduler().runTaskTimer(TBNRHub.getInstance(), new Runnable() {
                 @Override
                 public void run() {
-                    for (InventoryButton inventoryButton : lobbyChooser.getButtons()) {
-                        lobbyChooser.removeButton(inventoryButton);
-                    }
-                    List<NetworkServer> lobbyServers = ServerHelper.getLobbyServers();
-                    Collections.sort(lobbyServers, new Comparator<NetworkServer>() {
-                        @Override
-                        public int compare(NetworkServer o1, NetworkServer o2) {
-                            return ServerSignMatrix.getServerNumber(o1) - ServerSignMatrix.getServerNumber(o2);
-                        }
-                    });
-                    for (NetworkServer networkServer : lobbyServers) {
-                        lobbyChooser.addButton(new LobbyButton(networkServer));
-                    }
-                    lobbyChooser.updateInventory();
+                    if (lobbyChooserViewers.isEmpty()) return;
+                    refreshLobbyChooser();
                 }
             }, 40L, 40L);
         }
     }
 
+    /**
+     * Brings the lobby chooser up to date. Buttons are only rebuilt when their server's online count changed, and the
+     * whole chooser is only laid out again when the set of lobbies changed.
+     */
+    private void refreshLobbyChooser() {
+        List<NetworkServer> lobbyServers = ServerHelper.getLobbyServers();
+        Collections.sort(lobbyServers, new Comparator<NetworkServer>() {
+            @Override
+            public int compare(NetworkServer o1, NetworkServer o2) {
+                return getServerNumber(o1) - getServerNumber(o2);
+            }
+        });
+        boolean sameLobbies = lobbyServers.size() == lobbyButtons.size();
+        if (sameLobbies) {
+            Iterator<String> names = lobbyButtons.keySet().iterator();
+            for (NetworkServer lobbyServer : lobbyServers) {
+                if (!lobbyServer.getName().equals(names.next())) {
+                    sameLobbies = false;
+                    break;
+                }
+            }
+        }
+        if (!sameLobbies) {
+            for (InventoryButton inventoryButton : lobbyChooser.getButtons()) {
+                lobbyChooser.removeButton(inventoryButton);
+            }
+            lobbyButtons.clear();
+            for (NetworkServer networkServer : lobbyServers) {
+                LobbyButton button = new LobbyButton(networkServer, getServerNumber(networkServer));
+                lobbyButtons.put(networkServer.getName(), button);
+                lobbyChooser.addButton(button);
+            }
+            lobbyChooser.updateInventory();
+            return;
+        }
+        boolean changed = false;
+        for (NetworkServer lobbyServer : lobbyServers) {
+            LobbyButton button = lobbyButtons.get(lobbyServer.getName());
+            if (button.onlineCount == lobbyServer.getOnlineCount()) continue;
+            button.update(lobbyServer);
+            lobbyChooser.markForUpdate(button);
+            changed = true;
+        }
+        if (changed) lobbyChooser.updateInventory();
+    }
+
+    private Integer getServerNumber(NetworkServer server) {
+        Integer number = serverNumbers.get(server.getName());
+        if (number == null) {
+            number = ServerSignMatrix.getServerNumber(server);
+            serverNumbers.put(server.getName(), number);
+        }
+        return number;
+    }
+
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        if (!event.getInventory().getTitle().equals(LOBBY_CHOOSER_TITLE)) return;
+        lobbyChooserViewers.remove(Core.getOnlinePlayer((Player) event.getPlayer()));
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        lobbyChooserViewers.remove(Core.getOnlinePlayer(event.getPlayer()));
+    }
+
     private InventoryGraphicalInterface getNewWarpMenu() {
         InventoryGraphicalInterface graphicalInterface = new InventoryGraphicalInterface(9, ChatColor.GRAY + ChatColor.BOLD.toString() + "WARP STAR");
         for (Warp warp : TBNRHub.getInstance().getWarpRepository()) {
@@ -127,7 +186,9 @@ public final class PlayerInventory extends ControlledInventory implements Listen
 
                     @Override
                     protected void onUse(CPlayer player) {
+                        refreshLobbyChooser();
                         lobbyChooser.open(player);
+                        lobbyChooserViewers.add(player);
                     }
                 };
             case 6:
@@ -169,15 +230,25 @@ public final class PlayerInventory extends ControlledInventory implements Listen
     }
 
     public InventoryGraphicalInterface getNewLobbyChooser() {
-        return new InventoryGraphicalInterface(9, ChatColor.GREEN + ChatColor.BOLD.toString() + "LOBBIES");
+        return new InventoryGraphicalInterface(9, LOBBY_CHOOSER_TITLE);
     }
 
     private class LobbyButton extends InventoryButton {
-        private final NetworkServer server;
+        private final Integer serverNumber;
+        private NetworkServer server;
+        private int onlineCount;
+
+        private LobbyButton(NetworkServer server, Integer serverNumber) {
+            super(stackForServer(server, serverNumber));
+            this.serverNumber = serverNumber;
+            this.server = server;
+            this.onlineCount = server.getOnlineCount();
+        }
 
-        private LobbyButton(NetworkServer server) {
-            super(stackForServer(server));
+        private void update(NetworkServer server) {
             this.server = server;
+            this.onlineCount = server.getOnlineCount();
+            setStack(stackForServer(server, serverNumber));
         }
 
         @Override
@@ -245,14 +316,14 @@ public final class PlayerInventory extends ControlledInventory implements Listen
         }
     }
 
-    private static ItemStack stackForServer(NetworkServer server) {
+    private static ItemStack stackForServer(NetworkServer server, Integer serverNumber) {
         byte data;
         boolean isThisServer = server.equals(Core.getNetworkManager().getThisServer());
         if (isThisServer) data = 4;
         else data = 5;
         ItemStack stack = new ItemStack(Material.STAINED_GLASS);
         ItemMeta itemMeta = stack.getItemMeta();
-        itemMeta.setDisplayName(ChatColor.GREEN + ChatColor.BOLD.toString() + "Lobby #" + ServerSignMatrix.getServerNumber(server));
+        itemMeta.setDisplayName(ChatColor.GREEN + ChatColor.BOLD.toString() + "Lobby #" + serverNumber);
         itemMeta.setLore(Arrays.asList( (isThisServer ? ChatColor.GOLD + "You are on this server" : ChatColor.GREEN + "Click to connect!"), "", ChatColor.GREEN + "There are " + ChatColor.RED + server.getOnlineCount() + ChatColor.GREEN + " players on this server."));
         stack.setItemMeta(itemMeta);
         stack.setDurability(data);
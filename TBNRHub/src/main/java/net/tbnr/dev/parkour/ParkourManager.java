@@ -1,6 +1,8 @@
 package net.tbnr.dev.parkour;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import net.cogzmc.core.Core;
 import net.cogzmc.core.effect.npc.AbstractMobNPC;
 import net.cogzmc.core.effect.npc.ClickAction;
@@ -23,7 +25,6 @@ import org.bukkit.*;
 import org.bukkit.entity.Villager;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
-import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.inventory.ItemStack;
@@ -47,6 +48,7 @@ public final class ParkourManager implements Listener, CPlayerConnectionListener
     private final List<Parkour> parkours = new ArrayList<>();
     private final Map<Parkour, MobNPCVillager> villagers = new HashMap<>();
     private final Map<CPlayer, InventoryGraphicalInterface> interfaces = new WeakHashMap<>();
+    @Getter(AccessLevel.PACKAGE) private final ParkourRegionIndex regionIndex = new ParkourRegionIndex();
 
     public ParkourManager() {
         TBNRHub.getInstance().registerListener(this);
@@ -115,17 +117,19 @@ public final class ParkourManager implements Listener, CPlayerConnectionListener
         }
     }
 
+    /* sessions used to listen for themselves, at the default priority and cancelled moves included */
+    @EventHandler
+    public void onSessionMove(PlayerMoveEvent event) {
+        ParkourSession session = sessions.get(Core.getOnlinePlayer(event.getPlayer()));
+        if (session != null) session.onPlayerMove(event);
+    }
+
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onPlayerMove(PlayerMoveEvent event) {
-        Point to = Point.of(event.getTo());
         CPlayer player = Core.getOnlinePlayer(event.getPlayer());
         if (sessions.containsKey(player)) return;
-        for (Parkour parkour : parkours) {
-            if (parkour.getStartRegion().isWithin(to)) {
-               startParkour(parkour, 1, player, false);
-                return;
-            }
-        }
+        Parkour parkour = regionIndex.getParkourStartingAt(event.getTo());
+        if (parkour != null) startParkour(parkour, 1, player, false);
     }
 
     public void startParkour(Parkour parkour, Integer level, CPlayer player, boolean teleport) {
@@ -137,7 +141,6 @@ public final class ParkourManager implements Listener, CPlayerConnectionListener
     }
 
     void parkourCompleted(ParkourSession session) {
-        HandlerList.unregisterAll(session);
         sessions.remove(session.getPlayer());
         interfaces.remove(session.getPlayer());
         getInterfaceFor(session.getPlayer(), session.getParkour());
@@ -214,9 +217,7 @@ public final class ParkourManager implements Listener, CPlayerConnectionListener
     @Override
     public void onPlayerDisconnect(CPlayer player) {
         interfaces.remove(player);
-        if (!sessions.containsKey(player)) return;
-        ParkourSession remove = sessions.remove(player);
-        HandlerList.unregisterAll(remove);
+        sessions.remove(player);
     }
 
     public void addParkour(Parkour parkourLevels) {
@@ -225,6 +226,7 @@ public final class ParkourManager implements Listener, CPlayerConnectionListener
     }
 
     private void setupParkour(final Parkour parkour) {
+        regionIndex.add(parkour);
         String format = TBNRHub.getInstance().getFormat("parkour-npc-title", false);
         Point spawnPoint = parkour.getVillagerPoint().deepCopy().add(0d, 1d, 0d);
         MobNPCVillager villager = new MobNPCVillager(spawnPoint, parkour.getWorld(), null, format);
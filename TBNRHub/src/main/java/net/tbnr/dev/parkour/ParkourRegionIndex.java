@@ -0,0 +1,81 @@
+package net.tbnr.dev.parkour;
+
+import lombok.Data;
+import net.cogzmc.core.util.Point;
+import net.cogzmc.core.util.Region;
+import org.bukkit.Location;
+
+import java.util.*;
+
+/**
+ * Buckets every parkour region (start, end, and each level start) by the chunk columns it covers, so a move that is
+ * nowhere near a parkour costs one hash lookup.
+ */
+final class ParkourRegionIndex {
+    private final Map<Long, List<IndexedRegion>> chunks = new HashMap<>();
+
+    void add(Parkour parkour) {
+        add(parkour, parkour.getStartRegion(), RegionType.START);
+        add(parkour, parkour.getEndRegion(), RegionType.END);
+        for (ParkourLevel level : parkour) {
+            add(parkour, level.getStartRegion(), RegionType.LEVEL_START);
+        }
+    }
+
+    private void add(Parkour parkour, Region region, RegionType type) {
+        IndexedRegion indexedRegion = new IndexedRegion(parkour, region, type);
+        int minX = (int) Math.floor(region.getMin().getX()) >> 4, maxX = (int) Math.floor(region.getMax().getX()) >> 4;
+        int minZ = (int) Math.floor(region.getMin().getZ()) >> 4, maxZ = (int) Math.floor(region.getMax().getZ()) >> 4;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                Long key = getKey(x, z);
+                List<IndexedRegion> regions = chunks.get(key);
+                if (regions == null) {
+                    regions = new ArrayList<>(2);
+                    chunks.put(key, regions);
+                }
+                regions.add(indexedRegion);
+            }
+        }
+    }
+
+    /**
+     * @return The regions that share a chunk column with this location, or {@code null} if there are none.
+     */
+    List<IndexedRegion> getRegionsNear(Location location) {
+        return chunks.get(getKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+    }
+
+    boolean isNearAny(Location location) {
+        return getRegionsNear(location) != null;
+    }
+
+    Parkour getParkourStartingAt(Location location) {
+        List<IndexedRegion> regions = getRegionsNear(location);
+        if (regions == null) return null;
+        Point point = null;
+        for (IndexedRegion region : regions) {
+            if (region.type != RegionType.START || !region.parkour.getWorld().equals(location.getWorld())) continue;
+            if (point == null) point = Point.of(location);
+            if (region.region.isWithin(point)) return region.parkour;
+        }
+        return null;
+    }
+
+    private static Long getKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @Data
+    static final class IndexedRegion {
+        private final Parkour parkour;
+        private final Region region;
+        private final RegionType type;
+    }
+
+    enum RegionType {
+        START,
+        END,
+        LEVEL_START
+    }
+}
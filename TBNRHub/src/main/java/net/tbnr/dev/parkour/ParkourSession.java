@@ -16,8 +16,6 @@ import net.tbnr.dev.setting.SettingChangeException;
 import org.bukkit.*;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.joda.time.Duration;
@@ -27,7 +25,7 @@ import java.util.*;
 
 @EqualsAndHashCode
 @ToString
-public final class ParkourSession implements Listener {
+public final class ParkourSession {
     private static final Integer PARKOUR_PRIORITY = 3;
 
     @Getter private final CPlayer player;
@@ -62,22 +60,27 @@ public final class ParkourSession implements Listener {
         nextLevel = getNextLevel();
     }
 
-    @EventHandler
-    public void onPlayerMove(PlayerMoveEvent event) {
-        Player bukkitPlayer = player.getBukkitPlayer();
-        if (!event.getPlayer().equals(bukkitPlayer)) return;
+    /**
+     * Called by the {@link ParkourManager} for moves made by this session's player.
+     */
+    void onPlayerMove(PlayerMoveEvent event) {
+        Player bukkitPlayer = event.getPlayer();
         Location to = event.getTo();
         Point current = Point.of(to);
         Block block = to.getBlock().getRelative(0, -1, 0);
         Point currentBlock = Point.of(block);
         boolean inAirCurrent = !bukkitPlayer.isOnGround() || block.getType() == Material.AIR;
+        //no parkour region shares this chunk column, so none of the region checks below can pass
+        boolean nearRegion = manager.getRegionIndex().isNearAny(to);
+        boolean inStart = nearRegion && parkour.getStartRegion().isWithin(current);
+        boolean onStart = nearRegion && parkour.getStartRegion().isWithin(currentBlock);
         do {
-            if (parkour.getEndRegion().isWithin(current)) {
+            if (nearRegion && parkour.getEndRegion().isWithin(current)) {
                 completedLevel(new Duration(levelStart, new Instant()));
                 endParkour();
                 break;
             }
-            boolean b = nextLevel != null && nextLevel.getStartRegion().isWithin(current);
+            boolean b = nearRegion && nextLevel != null && nextLevel.getStartRegion().isWithin(current);
             if (playing && b && level != null) {
                 //finished a level
                 Duration levelTime = new Duration(levelStart, new Instant());
@@ -102,8 +105,8 @@ public final class ParkourSession implements Listener {
                 timerTask = null;
                 playing = false;
             }
-            if (parkour.getStartRegion().isWithin(currentBlock) ||  (nextLevel != null && nextLevel.getStartRegion().isWithin(current))) break;
-            if (!playing && (lastPoint == null || nextLevel.getStartRegion().isWithin(lastPoint)) && !nextLevel.getStartRegion().isWithin(current)) {
+            if (onStart || b) break;
+            if (!playing && nextLevel != null && (lastPoint == null || nextLevel.getStartRegion().isWithin(lastPoint))) {
                 //move onto next level
                 lastLevel = level;
                 tickBack = true;
@@ -119,7 +122,7 @@ public final class ParkourSession implements Listener {
                 timerTask = new TimerRunnable().schedule();
                 playing = true;
             }
-            if (!parkour.getStartRegion().isWithin(current) && (nextLevel != null && !nextLevel.getStartRegion().isWithin(current)) && !playing) {
+            if (!inStart && nextLevel != null && !playing) {
                 cleanupParkour();
                 break;
             }
@@ -218,7 +221,6 @@ public final class ParkourSession implements Listener {
         toggleSetting(PlayerSetting.PLAYERS, false);
         toggleSetting(PlayerSetting.JUMP_BOOST, false);
         toggleSetting(PlayerSetting.PARTICLE_EFFECT, false);
-        TBNRHub.getInstance().registerListener(this);
     }
 
     private void toggleSetting(PlayerSetting setting, boolean targetState) {
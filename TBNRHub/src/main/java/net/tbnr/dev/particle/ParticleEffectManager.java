@@ -2,8 +2,6 @@ package net.tbnr.dev.particle;
 
 import net.cogzmc.core.Core;
 import net.cogzmc.core.effect.npc.ClickAction;
-import net.cogzmc.core.effect.particle.ParticleEffect;
-import net.cogzmc.core.effect.particle.ParticleEffectType;
 import net.cogzmc.core.gui.InventoryButton;
 import net.cogzmc.core.gui.InventoryGraphicalInterface;
 import net.cogzmc.core.modular.command.EmptyHandlerException;
@@ -28,6 +26,12 @@ import java.util.WeakHashMap;
 public final class ParticleEffectManager implements Listener {
     private final Map<CPlayer, Point> lastLocations = new WeakHashMap<>();
     private final Map<CPlayer, ParticlePack> particlePacks = new WeakHashMap<>();
+    private final ParticleTrailEngine trailEngine;
+
+    public ParticleEffectManager() {
+        trailEngine = new ParticleTrailEngine(TBNRHub.getInstance().getConfig().getInt("particle-packet-budget", 35));
+        Bukkit.getScheduler().runTaskTimer(TBNRHub.getInstance(), trailEngine, 1L, 1L);
+    }
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
@@ -83,27 +87,7 @@ public final class ParticleEffectManager implements Listener {
         Point point = onlinePlayer.getPoint();
         if (point1 != null && point1.distanceSquared(point) < 0.125) return;
         lastLocations.put(onlinePlayer, point);
-        ParticleEffect[] effects = new ParticleEffect[7];
-        Location[] locations = new Location[effects.length];
-        World world = onlinePlayer.getBukkitPlayer().getWorld();
-        float yInc = 2.0f/locations.length;
-        ParticleEffectType[] types = packFor.types;
-        for (int i = 0; i < effects.length ; i++) {
-            effects[i] = new ParticleEffect(types[Core.getRandom().nextInt(types.length)]);
-            locations[i] = point.deepCopy().getLocation(world).add(0, yInc*i, 0);
-            effects[i].setAmount(1);
-            effects[i].setYSpread(0.3f);
-            effects[i].setZSpread(0.3f);
-            effects[i].setXSpread(0.3f);
-            effects[i].setSpeed(1f);
-        }
-        for (CPlayer player : Core.getOnlinePlayers()) {
-            if (!TBNRHub.getInstance().getSettingsManager().getStateFor(PlayerSetting.PLAYERS, player) && !player.equals(onlinePlayer)) continue;
-            if (player.getPoint().distanceSquared(point) > 400) continue;
-            for (int i = 0; i < effects.length; i++) {
-                effects[i].emitToPlayer(player, locations[i]);
-            }
-        }
+        trailEngine.queue(onlinePlayer, packFor);
     }
 
     private class ParticlePackButton extends InventoryButton {
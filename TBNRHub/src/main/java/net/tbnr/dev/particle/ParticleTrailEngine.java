@@ -0,0 +1,121 @@
+package net.tbnr.dev.particle;
+
+import net.cogzmc.core.Core;
+import net.cogzmc.core.effect.particle.ParticleEffect;
+import net.cogzmc.core.effect.particle.ParticleEffectType;
+import net.cogzmc.core.player.CPlayer;
+import net.tbnr.dev.TBNRHub;
+import net.tbnr.dev.setting.PlayerSetting;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.*;
+
+/**
+ * Collects the trails queued by moves during a tick and emits them all at once. Viewers are bucketed by chunk once per
+ * tick so each trail only looks at the players around it, and every viewer is capped at a number of packets per tick.
+ */
+final class ParticleTrailEngine implements Runnable {
+    private static final Integer TRAIL_STEPS = 7;
+    private static final Float TRAIL_HEIGHT = 2.0f;
+    private static final Integer VIEW_DISTANCE = 20;
+
+    private final Integer packetBudget;
+    private final Map<CPlayer, ParticlePack> emitters = new LinkedHashMap<>();
+    private final Map<ParticleEffectType, ParticleEffect> effects = new HashMap<>();
+
+    /* rebuilt every tick that has something to emit */
+    private final Map<Long, List<CPlayer>> viewers = new HashMap<>();
+    private final Set<CPlayer> hidingPlayers = new HashSet<>();
+    private final Map<CPlayer, Integer> packetsSent = new HashMap<>();
+    private final List<CPlayer> recipients = new ArrayList<>();
+
+    ParticleTrailEngine(Integer packetBudget) {
+        this.packetBudget = packetBudget;
+    }
+
+    void queue(CPlayer player, ParticlePack pack) {
+        emitters.put(player, pack);
+    }
+
+    @Override
+    public void run() {
+        if (emitters.isEmpty()) return;
+        indexViewers();
+        for (Map.Entry<CPlayer, ParticlePack> emitter : emitters.entrySet()) {
+            if (!emitter.getKey().isOnline()) continue;
+            emit(emitter.getKey(), emitter.getValue());
+        }
+        emitters.clear();
+        viewers.clear();
+        hidingPlayers.clear();
+        packetsSent.clear();
+    }
+
+    private void indexViewers() {
+        for (CPlayer player : Core.getOnlinePlayers()) {
+            Location location = player.getBukkitPlayer().getLocation();
+            Long key = getKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+            List<CPlayer> players = viewers.get(key);
+            if (players == null) {
+                players = new ArrayList<>();
+                viewers.put(key, players);
+            }
+            players.add(player);
+            if (!TBNRHub.getInstance().getSettingsManager().getStateFor(PlayerSetting.PLAYERS, player)) hidingPlayers.add(player);
+        }
+    }
+
+    private void emit(CPlayer emitter, ParticlePack pack) {
+        Location location = emitter.getBukkitPlayer().getLocation();
+        World world = location.getWorld();
+        double x = location.getX(), y = location.getY(), z = location.getZ();
+        int blockX = location.getBlockX(), blockZ = location.getBlockZ();
+        recipients.clear();
+        for (int chunkX = (blockX - VIEW_DISTANCE) >> 4; chunkX <= (blockX + VIEW_DISTANCE) >> 4; chunkX++) {
+            for (int chunkZ = (blockZ - VIEW_DISTANCE) >> 4; chunkZ <= (blockZ + VIEW_DISTANCE) >> 4; chunkZ++) {
+                List<CPlayer> players = viewers.get(getKey(chunkX, chunkZ));
+                if (players == null) continue;
+                for (CPlayer player : players) {
+                    if (hidingPlayers.contains(player) && !player.equals(emitter)) continue;
+                    Location viewerLocation = player.getBukkitPlayer().getLocation();
+                    if (viewerLocation.getWorld() != world) continue;
+                    double dX = viewerLocation.getX() - x, dY = viewerLocation.getY() - y, dZ = viewerLocation.getZ() - z;
+                    if (dX * dX + dY * dY + dZ * dZ > VIEW_DISTANCE * VIEW_DISTANCE) continue;
+                    recipients.add(player);
+                }
+            }
+        }
+        if (recipients.isEmpty()) return;
+        ParticleEffectType[] types = pack.types;
+        float yInc = TRAIL_HEIGHT / TRAIL_STEPS;
+        for (int i = 0; i < TRAIL_STEPS; i++) {
+            ParticleEffect effect = getEffect(types[Core.getRandom().nextInt(types.length)]);
+            location.setY(y + yInc * i);
+            for (CPlayer recipient : recipients) {
+                Integer sent = packetsSent.get(recipient);
+                if (sent == null) sent = 0;
+                if (sent >= packetBudget) continue;
+                effect.emitToPlayer(recipient, location);
+                packetsSent.put(recipient, sent + 1);
+            }
+        }
+    }
+
+    private ParticleEffect getEffect(ParticleEffectType type) {
+        ParticleEffect effect = effects.get(type);
+        if (effect != null) return effect;
+        effect = new ParticleEffect(type);
+        effect.setAmount(1);
+        effect.setYSpread(0.3f);
+        effect.setZSpread(0.3f);
+        effect.setXSpread(0.3f);
+        effect.setSpeed(1f);
+        effects.put(type, effect);
+        return effect;
+    }
+
+    private static Long getKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
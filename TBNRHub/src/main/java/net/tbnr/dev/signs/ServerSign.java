@@ -12,8 +12,11 @@ import net.tbnr.dev.JoinAttemptHandler;
 import net.tbnr.dev.ServerHelper;
 import net.tbnr.dev.TBNRHub;
 import org.bukkit.ChatColor;
+import org.bukkit.block.BlockState;
 import org.bukkit.block.Sign;
 
+import java.util.Arrays;
+
 @Data
 @EqualsAndHashCode(of = {"point"})
 @Setter(AccessLevel.NONE)
@@ -22,6 +25,7 @@ public final class ServerSign implements JoinAttemptHandler.JoinAttemptDelegate
     private final ServerSignMatrix matrix;
 
     private NetworkServer currentlyDisplaying;
+    private String[] lastLines;
 
     public void onClick(CPlayer player) throws IllegalStateException {
         if (currentlyDisplaying == null) return;
@@ -30,36 +34,41 @@ public final class ServerSign implements JoinAttemptHandler.JoinAttemptDelegate
     }
 
     public void update(NetworkServer server) {
-        Sign sign = getSign();
         if (server == null) {
-            sign.setLine(0, $("&7[&aTBNR&7]"));
-            sign.setLine(1, "");
-            sign.setLine(2, $("&4This server"));
-            sign.setLine(3, $("&4is offline!"));
-            sign.update(true);
+            render($("&7[&aTBNR&7]"), "", $("&4This server"), $("&4is offline!"));
             return;
         }
         String status = ServerHelper.getStatus(server);
         SignState aFor = SignState.getFor(status);
-        if (status == null || aFor == SignState.Restarting) ServerHelper.requestStatus(server);
-        sign.setLine(0, ChatColor.GRAY + "[" + ChatColor.DARK_GREEN + getAbreviationFor(matrix.getGame()) + ServerSignMatrix.getServerNumber(server) + ChatColor.GRAY + "]");
+        if (status == null) ServerHelper.requestStatus(server);
         if (aFor == SignState.Restarting) {
-            sign.setLine(0, $("&7[&aTBNR&7]"));
-            sign.setLine(1, "");
-            sign.setLine(2, $("&4This server is"));
-            sign.setLine(3, $("&4offline!"));
-            sign.update(true);
+            render($("&7[&aTBNR&7]"), "", $("&4This server is"), $("&4offline!"));
             return;
         }
-        sign.setLine(1, (server.getOnlineCount() < matrix.getGame().getMaxPlayers() ? ChatColor.GREEN + ChatColor.BOLD.toString() + "Not Full" : ChatColor.RED + ChatColor.BOLD.toString() + "Full"));
-        sign.setLine(2, (aFor == SignState.In_Game ? ChatColor.DARK_RED : ChatColor.DARK_GREEN) + ChatColor.BOLD.toString() + aFor.name().replaceAll("_", " "));
-        sign.setLine(3, $("&2" + server.getOnlineCount() + "/" + matrix.getGame().getMaxPlayers()));
-        sign.update(true);
+        render(ChatColor.GRAY + "[" + ChatColor.DARK_GREEN + getAbreviationFor(matrix.getGame()) + ServerSignMatrix.getServerNumber(server) + ChatColor.GRAY + "]",
+                (server.getOnlineCount() < matrix.getGame().getMaxPlayers() ? ChatColor.GREEN + ChatColor.BOLD.toString() + "Not Full" : ChatColor.RED + ChatColor.BOLD.toString() + "Full"),
+                (aFor == SignState.In_Game ? ChatColor.DARK_RED : ChatColor.DARK_GREEN) + ChatColor.BOLD.toString() + aFor.name().replaceAll("_", " "),
+                $("&2" + server.getOnlineCount() + "/" + matrix.getGame().getMaxPlayers()));
         currentlyDisplaying = server;
     }
 
+    /**
+     * Writes the lines to the sign, unless they are exactly what the sign is already showing.
+     */
+    private void render(String... lines) {
+        if (Arrays.equals(lines, lastLines)) return;
+        Sign sign = getSign();
+        if (sign == null) return;
+        for (int i = 0; i < lines.length; i++) {
+            sign.setLine(i, lines[i]);
+        }
+        sign.update(true);
+        lastLines = lines;
+    }
+
     private Sign getSign() {
-        return (Sign) point.getLocation(matrix.getWorld()).getBlock().getState();
+        BlockState state = point.getLocation(matrix.getWorld()).getBlock().getState();
+        return state instanceof Sign ? (Sign) state : null;
     }
 
     private static String $(String s) {
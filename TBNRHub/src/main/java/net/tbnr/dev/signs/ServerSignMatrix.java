@@ -1,6 +1,9 @@
 package net.tbnr.dev.signs;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import net.cogzmc.core.Core;
 import net.cogzmc.core.network.NetworkServer;
 import net.cogzmc.core.util.Point;
@@ -14,51 +17,111 @@ import org.bukkit.block.Block;
 import java.util.*;
 
 @Data
+@EqualsAndHashCode(of = {"region", "world", "game"})
 public final class ServerSignMatrix {
+    private final static Long STATUS_REQUEST_INTERVAL = 30000L;
+
     private final Region region;
     private final World world;
     private final Set<ServerSign> signSet;
     private final Game game;
+    @Getter(AccessLevel.NONE) private final Map<Point, ServerSign> signsByPoint = new HashMap<>();
+    @Getter(AccessLevel.NONE) private final Map<String, Integer> lastOnlineCounts = new HashMap<>();
+    /* servers we had a status for when the signs were last drawn */
+    @Getter(AccessLevel.NONE) private final Set<String> lastKnown = new HashSet<>();
+    @Getter(AccessLevel.NONE) private final Map<String, Long> lastRequested = new HashMap<>();
+    private boolean dirty = true;
 
     public ServerSignMatrix(Region region, World world, Game game) {
         this.region = region;
         this.game = game;
         this.world = world;
         this.signSet = new LinkedHashSet<>();
-
+        findSigns();
     }
 
     public ServerSign getSignAt(Point point) {
-        for (ServerSign serverSign : signSet) {
-            if (serverSign.getPoint().equals(point)) return serverSign;
+        return signsByPoint.get(point);
+    }
+
+    /**
+     * Scans the region for signs. This only happens when the matrix is created, not on every update.
+     */
+    public void findSigns() {
+        signSet.clear();
+        signsByPoint.clear();
+        for (Double y = region.getMax().getY(); y >= region.getMin().getY(); y--) {
+            for (Double x = region.getMax().getX(); x >= region.getMin().getX(); x--) {
+                for (Double z = region.getMin().getZ(); z <= region.getMax().getZ(); z++) {
+                    Block blockAt = world.getBlockAt(x.intValue(), y.intValue(), z.intValue());
+                    if (blockAt.getType() != Material.WALL_SIGN && blockAt.getType() != Material.SIGN_POST) continue;
+                    ServerSign sign = new ServerSign(Point.of(blockAt), this);
+                    signSet.add(sign);
+                    signsByPoint.put(sign.getPoint(), sign);
+                }
+            }
         }
-        return null;
+        dirty = true;
     }
 
-    public void update() {
+    /**
+     * Updates the signs if a status arrived for one of our servers or an online count changed since the last update.
+     * Servers we have no status for are asked for one every now and then, without drawing anything.
+     */
+    public void updateIfChanged() {
         if (Core.getNetworkManager() == null) return;
         List<NetworkServer> servers = ServerHelper.getServers(game);
-        Iterator<NetworkServer> iterator = servers.iterator();
+        requestMissingStatuses(servers);
+        if (!dirty && !countsChanged(servers)) return;
+        update(servers);
+    }
+
+    private void requestMissingStatuses(List<NetworkServer> servers) {
+        long now = System.currentTimeMillis();
+        for (NetworkServer server : servers) {
+            if (ServerHelper.getStatus(server) != null) continue;
+            Long requested = lastRequested.get(server.getName());
+            if (requested != null && now - requested < STATUS_REQUEST_INTERVAL) continue;
+            lastRequested.put(server.getName(), now);
+            ServerHelper.requestStatus(server);
+        }
+    }
+
+    public void update() {
+        if (Core.getNetworkManager() == null) return;
+        update(ServerHelper.getServers(game));
+    }
+
+    private void update(List<NetworkServer> servers) {
+        dirty = false;
+        lastOnlineCounts.clear();
+        lastKnown.clear();
+        for (NetworkServer server : servers) {
+            lastOnlineCounts.put(server.getName(), server.getOnlineCount());
+            if (ServerHelper.getStatus(server) != null) lastKnown.add(server.getName());
+        }
         Collections.sort(servers, new Comparator<NetworkServer>() {
             @Override
             public int compare(NetworkServer o1, NetworkServer o2) {
                 return getServerNumber(o1)-getServerNumber(o2);
             }
         });
-        signSet.clear();
-        for (Double y = region.getMax().getY(); y >= region.getMin().getY(); y--) {
-            for (Double x = region.getMax().getX(); x >= region.getMin().getX(); x--) {
-                for (Double z = region.getMin().getZ(); z <= region.getMax().getZ(); z++) {
-                    Block blockAt = world.getBlockAt(x.intValue(), y.intValue(), z.intValue());
-                    if (blockAt.getType() == Material.WALL_SIGN || blockAt.getType() == Material.SIGN_POST) signSet.add(new ServerSign(Point.of(blockAt), this));
-                }
-            }
-        }
+        Iterator<NetworkServer> iterator = servers.iterator();
         for (ServerSign aSignSet : signSet) {
             aSignSet.update(iterator.hasNext() ? iterator.next() : null);
         }
     }
 
+    private boolean countsChanged(List<NetworkServer> servers) {
+        if (servers.size() != lastOnlineCounts.size()) return true;
+        for (NetworkServer server : servers) {
+            if (!Integer.valueOf(server.getOnlineCount()).equals(lastOnlineCounts.get(server.getName()))) return true;
+            //a server that is still unknown looks the same as last time, only learning or losing its status changes it
+            if ((ServerHelper.getStatus(server) != null) != lastKnown.contains(server.getName())) return true;
+        }
+        return false;
+    }
+
     public static Integer getServerNumber(NetworkServer server) {
         String name = server.getName();
         StringBuilder number = new StringBuilder();
@@ -8,25 +8,32 @@ import net.cogzmc.core.player.mongo.CMongoDatabase;
 import net.cogzmc.core.player.mongo.MongoUtils;
 import net.cogzmc.core.util.Region;
 import net.tbnr.dev.Game;
+import net.tbnr.dev.ServerHelper;
 import net.tbnr.dev.TBNRHub;
 import net.tbnr.dev.util.MongoToolsHub;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.scheduler.BukkitTask;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Data
-public final class ServerSignMatrixManager {
+public final class ServerSignMatrixManager implements ServerHelper.StatusListener {
     private final static String SIGNS_COLLECTION = "hub_signs";
 
     private final CMongoDatabase database;
     private final Set<ServerSignMatrix> matrixes = new HashSet<>();
+    /* status updates can arrive off the main thread, so they are only recorded here and applied by the update task */
+    private final Set<String> changedServers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     private BukkitTask updateTask;
 
     {
         TBNRHub.getInstance().registerListener(new ServerSignListener(this));
+        ServerHelper.addStatusListener(this);
     }
 
     public void reload() {
@@ -40,11 +47,23 @@ public final class ServerSignMatrixManager {
         updateTask = Bukkit.getScheduler().runTaskTimer(TBNRHub.getInstance(), new Runnable() {
             @Override
             public void run() {
+                for (Iterator<String> iterator = changedServers.iterator(); iterator.hasNext(); ) {
+                    String serverName = iterator.next();
+                    iterator.remove();
+                    for (ServerSignMatrix matrix : matrixes) {
+                        if (ServerHelper.isServerFor(serverName, matrix.getGame())) matrix.setDirty(true);
+                    }
+                }
                 for (ServerSignMatrix matrix : matrixes) {
-                    matrix.update();
+                    matrix.updateIfChanged();
                 }
             }
-        }, 40L, 40L);
+        }, 20L, 20L);
+    }
+
+    @Override
+    public void onStatusChanged(String serverName, String status) {
+        changedServers.add(serverName);
     }
 
     public void save(ServerSignMatrix matrix) {
@@ -0,0 +1,57 @@
+package net.tbnr.dev.migrator;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A file listing every player that has been migrated, one UUID per line. Workers finish out of order, so the file
+ * records players rather than a position in a cursor. Running again with the same file skips everyone listed.
+ */
+final class MigrationCheckpoint implements Closeable {
+    private final Set<UUID> completed = Collections.synchronizedSet(new HashSet<UUID>());
+    private final BufferedWriter writer;
+
+    MigrationCheckpoint(File file) throws IOException {
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty()) continue;
+                    try {
+                        completed.add(UUID.fromString(line));
+                    } catch (IllegalArgumentException ignored) {
+                        //a line cut off by an interrupted write
+                    }
+                }
+            }
+        }
+        writer = new BufferedWriter(new FileWriter(file, true));
+    }
+
+    boolean isCompleted(UUID uuid) {
+        return completed.contains(uuid);
+    }
+
+    Integer getCompletedCount() {
+        return completed.size();
+    }
+
+    synchronized void markCompleted(UUID uuid) throws IOException {
+        completed.add(uuid);
+        writer.write(uuid.toString());
+        writer.newLine();
+    }
+
+    synchronized void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
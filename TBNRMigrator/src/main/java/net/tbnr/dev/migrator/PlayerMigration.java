@@ -0,0 +1,76 @@
+package net.tbnr.dev.migrator;
+
+import net.cogzmc.core.player.CGroup;
+import net.cogzmc.core.player.DatabaseConnectException;
+import net.cogzmc.core.player.mongo.CMongoPlayerRepository;
+import net.cogzmc.core.player.mongo.COfflineMongoPlayer;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Everything that has to change for one player, collected from all of the source collections so the player is only
+ * loaded and saved once.
+ */
+final class PlayerMigration {
+    private static Field millisecondsOnlineField;
+
+    private final UUID uuid;
+    /* names of groups in the target database, every worker looks them up in its own repository */
+    private final List<String> groups = new ArrayList<>();
+    private boolean flight = false;
+    private Object millisecondsOnline = null;
+
+    PlayerMigration(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    UUID getUuid() {
+        return uuid;
+    }
+
+    void addGroup(String group) {
+        if (group != null && !groups.contains(group)) groups.add(group);
+    }
+
+    void grantFlight() {
+        flight = true;
+    }
+
+    void setMillisecondsOnline(Object millisecondsOnline) {
+        this.millisecondsOnline = millisecondsOnline;
+    }
+
+    boolean hasRanks() {
+        return !groups.isEmpty();
+    }
+
+    boolean hasFlight() {
+        return flight;
+    }
+
+    boolean hasTimeOnline() {
+        return millisecondsOnline != null;
+    }
+
+    void applyTo(COfflineMongoPlayer player, CMongoPlayerRepository repository) throws DatabaseConnectException, ReflectiveOperationException {
+        for (String name : groups) {
+            CGroup group = repository.getGroupRepository().getGroup(name);
+            if (group != null && !player.isDirectlyInGroup(group)) player.addToGroup(group);
+        }
+        if (flight) player.setPermission("hub.perk.flight", true);
+        if (millisecondsOnline != null) getMillisecondsOnlineField(player).set(player, millisecondsOnline);
+        player.saveIntoDatabase();
+    }
+
+    private static synchronized Field getMillisecondsOnlineField(COfflineMongoPlayer player) throws NoSuchFieldException {
+        if (millisecondsOnlineField == null) {
+            Field field = player.getClass().getDeclaredField("millisecondsOnline");
+            field.setAccessible(true);
+            millisecondsOnlineField = field;
+        }
+        return millisecondsOnlineField;
+    }
+}
@@ -1,130 +1,267 @@
 package net.tbnr.dev.migrator;
 
 import com.mongodb.*;
-import net.cogzmc.core.player.CGroup;
-import net.cogzmc.core.player.COfflinePlayer;
 import net.cogzmc.core.player.DatabaseConnectException;
 import net.cogzmc.core.player.mongo.CMongoDatabase;
 import net.cogzmc.core.player.mongo.CMongoGroupRepository;
 import net.cogzmc.core.player.mongo.CMongoPlayerRepository;
 import net.cogzmc.core.player.mongo.COfflineMongoPlayer;
 
-import java.lang.reflect.Field;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TBNRMigrator {
-    /* in core format */
-    private final CMongoPlayerRepository target;
+    private static final String DEFAULT_CHECKPOINT = "migration.checkpoint";
+    private static final Integer DEFAULT_THREADS = 8;
+    private static final Integer DEFAULT_BATCH_SIZE = 1000;
+    private static final Long REPORT_INTERVAL_SECONDS = 5L;
+
+    private static final Long MIN_TIME_ONLINE = 21600000L;
+    private static final Map<String, String> MIGRATE_TO = new HashMap<>();
+
+    static {
+        MIGRATE_TO.put("TBNR", "TBNR");
+        MIGRATE_TO.put("Hero", "Hero");
+        MIGRATE_TO.put("Premium", "Premium");
+        MIGRATE_TO.put("JrMod", "JrModerator");
+        MIGRATE_TO.put("Mod", "Moderator");
+        MIGRATE_TO.put("JrAdmin", "Admin");
+        MIGRATE_TO.put("Admin", "Admin");
+        MIGRATE_TO.put("Owner", "Owner");
+        MIGRATE_TO.put("Youtuber", "VIP");
+    }
+
+    /* in core format, the repositories keep an unsynchronized player cache so every worker gets its own */
+    private final ThreadLocal<CMongoPlayerRepository> target;
     /* in Jake0oo0 format */
     private final CMongoDatabase source;
+    private final MigrationCheckpoint checkpoint;
+    private final Integer threads = Integer.getInteger("migrator.threads", DEFAULT_THREADS);
+    private final Integer batchSize = Integer.getInteger("migrator.batch-size", DEFAULT_BATCH_SIZE);
+
+    private final AtomicInteger migrated = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger ranks = new AtomicInteger();
+    private final AtomicInteger flyPerms = new AtomicInteger();
+    private final AtomicInteger onlineTimes = new AtomicInteger();
 
     public static void main(String[] args) throws Exception {
         if (args.length < 4) {
             System.err.println("You did not specify at least two databases!");
             return;
         }
-        TBNRMigrator tbnrMigrator = new TBNRMigrator(getDatabaseFor(args[0], args[1]), getDatabaseFor(args[2], args[3]));
+        File checkpointFile = new File(args.length > 4 ? args[4] : DEFAULT_CHECKPOINT);
+        TBNRMigrator tbnrMigrator = new TBNRMigrator(getDatabaseFor(args[0], args[1]), getDatabaseFor(args[2], args[3]), checkpointFile);
         tbnrMigrator.start();
     }
 
-    public TBNRMigrator(CMongoDatabase target, CMongoDatabase source) throws DatabaseConnectException {
+    public TBNRMigrator(CMongoDatabase target, CMongoDatabase source, File checkpointFile) throws DatabaseConnectException, IOException {
         target.connect();
         source.connect();
-        this.target = new CMongoPlayerRepository(target);
-        this.target.setGroupRepository(new CMongoGroupRepository(target, this.target));
+        final CMongoDatabase targetDatabase = target;
+        this.target = new ThreadLocal<CMongoPlayerRepository>() {
+            @Override
+            protected CMongoPlayerRepository initialValue() {
+                CMongoPlayerRepository repository = new CMongoPlayerRepository(targetDatabase);
+                repository.setGroupRepository(new CMongoGroupRepository(targetDatabase, repository));
+                return repository;
+            }
+        };
         this.source = source;
+        this.checkpoint = new MigrationCheckpoint(checkpointFile);
     }
 
-    public void start() throws DatabaseConnectException {
+    public void start() throws InterruptedException, IOException {
         DBCollection permplayers = source.getCollection("permplayers");
-        Map<String, CGroup> migrateTo = new HashMap<>();
-        migrateTo.put("TBNR", target.getGroupRepository().getGroup("TBNR"));
-        migrateTo.put("Hero", target.getGroupRepository().getGroup("Hero"));
-        migrateTo.put("Premium", target.getGroupRepository().getGroup("Premium"));
-        migrateTo.put("JrMod", target.getGroupRepository().getGroup("JrModerator"));
-        migrateTo.put("Mod", target.getGroupRepository().getGroup("Moderator"));
-        migrateTo.put("JrAdmin", target.getGroupRepository().getGroup("Admin"));
-        migrateTo.put("Admin", target.getGroupRepository().getGroup("Admin"));
-        migrateTo.put("Owner", target.getGroupRepository().getGroup("Owner"));
-        migrateTo.put("Youtuber", target.getGroupRepository().getGroup("VIP"));
-
-        int migrations = 0;
-        for (Map.Entry<String, CGroup> migration : migrateTo.entrySet()) {
-            for (DBObject player : permplayers.find(new BasicDBObject("group", migration.getKey()))) {
-                UUID uuid;
-                String uuid1 = (String) player.get("uuid");
-                try {
-                    uuid = UUID.fromString(uuid1);
-                } catch (Exception e) {
-                    try {
-                        uuid = UUID.fromString(uuid1.replaceAll(
-                                "(\\w{8})(\\w{4})(\\w{4})(\\w{4})(\\w{12})",
-                                "$1-$2-$3-$4-$5"));
-                    } catch (Exception e1) {
-                        continue;
-                    }
-                }
-                COfflinePlayer offlinePlayerByUUID = target.getOfflinePlayerByUUID(uuid);
-                if (!offlinePlayerByUUID.isDirectlyInGroup(migration.getValue())) offlinePlayerByUUID.addToGroup(migration.getValue());
-                offlinePlayerByUUID.saveIntoDatabase();
-                migrations++;
-            }
+        DBCollection users = source.getCollection("users");
+        //players with a rank and enough time online are counted twice, so this is only an upper bound
+        long total = permplayers.count(getPermissionsQuery()) + users.count(getTimeOnlineQuery());
+        System.out.println("Migrating at most " + total + " players (" + checkpoint.getCompletedCount() + " already done) with " + threads + " workers.");
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(new ProgressReport(total, System.currentTimeMillis()), REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        //everyone with a rank or flight, with their time online looked up a batch at a time
+        List<DBObject> batch = new ArrayList<>();
+        for (DBObject player : permplayers.find(getPermissionsQuery(), new BasicDBObject("uuid", 1).append("group", 1).append("permissions", 1)).batchSize(batchSize)) {
+            batch.add(player);
+            if (batch.size() < batchSize) continue;
+            submitPermissionsBatch(batch, users, workers);
+            batch.clear();
         }
+        submitPermissionsBatch(batch, users, workers);
+        batch.clear();
+
+        //then everyone else with enough time online, leaving out who the first pass already covered
+        for (DBObject user : users.find(getTimeOnlineQuery(), new BasicDBObject("uuid", 1).append("time-online", 1)).batchSize(batchSize)) {
+            batch.add(user);
+            if (batch.size() < batchSize) continue;
+            submitTimeOnlineBatch(batch, permplayers, workers);
+            batch.clear();
+        }
+        submitTimeOnlineBatch(batch, permplayers, workers);
+
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        reporter.shutdownNow();
+        checkpoint.close();
+        System.out.println("Migrated " + ranks.get() + " ranks.");
+        System.out.println("Migrated " + flyPerms.get() + " fly perms.");
+        System.out.println("Migrated " + onlineTimes.get() + " online time.");
+        if (failed.get() > 0) System.out.println(failed.get() + " players failed and will be retried on the next run.");
+    }
+
+    private static DBObject getPermissionsQuery() {
+        return new BasicDBObject("$or", Arrays.asList(
+                new BasicDBObject("group", new BasicDBObject("$in", new ArrayList<>(MIGRATE_TO.keySet()))),
+                new BasicDBObject("permissions", "gearz.flight,true")));
+    }
 
-        System.out.println("Migrated " + migrations + " ranks.");
+    private static DBObject getTimeOnlineQuery() {
+        return new BasicDBObject("time-online", new BasicDBObject("$gt", MIN_TIME_ONLINE));
+    }
 
-        migrations = 0;
-        for (DBObject player : permplayers.find(new BasicDBObject("permissions", "gearz.flight,true"))) {
-            UUID uuid;
-            String uuid1 = (String) player.get("uuid");
+    /**
+     * Merges a batch of permission documents with the time online of the same players, and hands them to the workers.
+     * Blocks while the workers are behind, so only a few batches are ever held in memory.
+     */
+    private void submitPermissionsBatch(List<DBObject> batch, DBCollection users, Executor workers) {
+        if (batch.isEmpty()) return;
+        Map<UUID, PlayerMigration> migrations = new LinkedHashMap<>();
+        for (DBObject player : batch) {
+            PlayerMigration migration = getMigration(migrations, player);
+            if (migration == null) continue;
+            migration.addGroup(MIGRATE_TO.get(player.get("group")));
+            Object permissions = player.get("permissions");
+            if ("gearz.flight,true".equals(permissions) || (permissions instanceof Collection && ((Collection<?>) permissions).contains("gearz.flight,true"))) migration.grantFlight();
+        }
+        if (migrations.isEmpty()) return;
+        BasicDBObject query = new BasicDBObject("uuid", new BasicDBObject("$in", getUUIDStrings(migrations.keySet())));
+        query.putAll(getTimeOnlineQuery());
+        for (DBObject user : users.find(query, new BasicDBObject("uuid", 1).append("time-online", 1))) {
+            PlayerMigration migration = migrations.get(getUUID((String) user.get("uuid")));
+            if (migration != null) migration.setMillisecondsOnline(user.get("time-online"));
+        }
+        submit(migrations.values(), workers);
+    }
+
+    /**
+     * Hands a batch of time online documents to the workers, except for the players that have a rank or flight since
+     * the first pass already migrated their time online with them.
+     */
+    private void submitTimeOnlineBatch(List<DBObject> batch, DBCollection permplayers, Executor workers) {
+        if (batch.isEmpty()) return;
+        Map<UUID, PlayerMigration> migrations = new LinkedHashMap<>();
+        for (DBObject user : batch) {
+            PlayerMigration migration = getMigration(migrations, user);
+            if (migration != null) migration.setMillisecondsOnline(user.get("time-online"));
+        }
+        if (migrations.isEmpty()) return;
+        BasicDBObject query = new BasicDBObject("uuid", new BasicDBObject("$in", getUUIDStrings(migrations.keySet())));
+        query.putAll(getPermissionsQuery());
+        for (DBObject player : permplayers.find(query, new BasicDBObject("uuid", 1))) {
+            migrations.remove(getUUID((String) player.get("uuid")));
+        }
+        submit(migrations.values(), workers);
+    }
+
+    private void submit(Collection<PlayerMigration> migrations, Executor workers) {
+        for (PlayerMigration migration : migrations) {
+            workers.execute(new MigrationTask(migration));
+        }
+    }
+
+    private PlayerMigration getMigration(Map<UUID, PlayerMigration> migrations, DBObject player) {
+        UUID uuid = getUUID((String) player.get("uuid"));
+        if (uuid == null || checkpoint.isCompleted(uuid)) return null;
+        PlayerMigration migration = migrations.get(uuid);
+        if (migration == null) {
+            migration = new PlayerMigration(uuid);
+            migrations.put(uuid, migration);
+        }
+        return migration;
+    }
+
+    /**
+     * @return Every way the source collections may have written these UUIDs, with and without dashes.
+     */
+    private static List<String> getUUIDStrings(Collection<UUID> uuids) {
+        List<String> strings = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            strings.add(uuid.toString());
+            strings.add(uuid.toString().replace("-", ""));
+        }
+        return strings;
+    }
+
+    private static UUID getUUID(String uuid1) {
+        if (uuid1 == null) return null;
+        try {
+            return UUID.fromString(uuid1);
+        } catch (Exception e) {
             try {
-                uuid = UUID.fromString(uuid1);
-            } catch (Exception e) {
-                try {
-                    uuid = UUID.fromString(uuid1.replaceAll(
-                            "(\\w{8})(\\w{4})(\\w{4})(\\w{4})(\\w{12})",
-                            "$1-$2-$3-$4-$5"));
-                } catch (Exception e1) {
-                    continue;
-                }
+                return UUID.fromString(uuid1.replaceAll(
+                        "(\\w{8})(\\w{4})(\\w{4})(\\w{4})(\\w{12})",
+                        "$1-$2-$3-$4-$5"));
+            } catch (Exception e1) {
+                return null;
             }
-            COfflinePlayer offlinePlayerByUUID = target.getOfflinePlayerByUUID(uuid);
-            offlinePlayerByUUID.setPermission("hub.perk.flight", true);
-            offlinePlayerByUUID.saveIntoDatabase();
-            migrations++;
         }
+    }
+
+    private class MigrationTask implements Runnable {
+        private final PlayerMigration migration;
 
-        System.out.println("Migrated " + migrations + " fly perms.");
+        private MigrationTask(PlayerMigration migration) {
+            this.migration = migration;
+        }
 
-        migrations = 0;
-        for (DBObject dbObject : source.getCollection("users").find(new BasicDBObject("time-online", new BasicDBObject("$gt", 21600000)))) {
-            UUID uuid;
-            String uuid1 = (String) dbObject.get("uuid");
+        @Override
+        public void run() {
             try {
-                uuid = UUID.fromString(uuid1);
+                CMongoPlayerRepository repository = target.get();
+                COfflineMongoPlayer offlinePlayerByUUID = repository.getOfflinePlayerByUUID(migration.getUuid());
+                migration.applyTo(offlinePlayerByUUID, repository);
+                checkpoint.markCompleted(migration.getUuid());
             } catch (Exception e) {
-                try {
-                    uuid = UUID.fromString(uuid1.replaceAll(
-                            "(\\w{8})(\\w{4})(\\w{4})(\\w{4})(\\w{12})",
-                            "$1-$2-$3-$4-$5"));
-                } catch (Exception e1) {
-                    continue;
-                }
+                failed.incrementAndGet();
+                System.err.println("Could not migrate " + migration.getUuid() + ": " + e);
+                return;
             }
-            COfflineMongoPlayer offlinePlayerByUUID = target.getOfflinePlayerByUUID(uuid);
+            migrated.incrementAndGet();
+            if (migration.hasRanks()) ranks.incrementAndGet();
+            if (migration.hasFlight()) flyPerms.incrementAndGet();
+            if (migration.hasTimeOnline()) onlineTimes.incrementAndGet();
+        }
+    }
+
+    private class ProgressReport implements Runnable {
+        private final Long total;
+        private final Long started;
+
+        private ProgressReport(Long total, Long started) {
+            this.total = total;
+            this.started = started;
+        }
+
+        @Override
+        public void run() {
             try {
-                Field millisecondsOnline = offlinePlayerByUUID.getClass().getDeclaredField("millisecondsOnline");
-                millisecondsOnline.setAccessible(true);
-                millisecondsOnline.set(offlinePlayerByUUID, dbObject.get("time-online"));
-            } catch (Exception e) {
-                continue;
+                checkpoint.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-            offlinePlayerByUUID.saveIntoDatabase();
-            migrations++;
+            int done = migrated.get() + failed.get();
+            double seconds = (System.currentTimeMillis() - started) / 1000d;
+            double rate = seconds == 0 ? 0 : done / seconds;
+            long remaining = rate == 0 ? -1 : Math.round(Math.max(0, total - done) / rate);
+            System.out.println(String.format("%d/%d players (%.1f%%), %.1f players/s, %d failed, at most %s remaining",
+                    done, total, total == 0 ? 100d : Math.min(100d, done * 100d / total), rate, failed.get(), remaining < 0 ? "unknown" : remaining + "s"));
         }
-        System.out.println("Migrated " + migrations + " online time.");
     }
 
     private static CMongoDatabase getDatabaseFor(String arg, String db) {
@@ -1,47 +1,96 @@
 package net.tbnr.dev;
 
 import lombok.Data;
+import lombok.Getter;
 import net.cogzmc.core.Core;
 import net.cogzmc.core.network.NetCommandHandler;
 import net.cogzmc.core.network.NetworkServer;
 import net.cogzmc.core.player.COfflinePlayer;
 import net.cogzmc.core.player.CPlayer;
+import org.bukkit.Bukkit;
 
 import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Keeps track of the join attempts this server has sent out. Attempts are answered from the network thread and swept
+ * for timeouts on the main thread, so pending attempts live in a concurrent map keyed by player and server.
+ */
 public class JoinAttemptHandler implements NetCommandHandler<JoinAttemptResponse> {
-    private static Set<JoinAttemptEntry> serverRequests = new LinkedHashSet<>();
+    private static ConcurrentMap<AttemptKey, JoinAttemptEntry> serverRequests = new ConcurrentHashMap<>();
+    private static ConcurrentMap<String, ServerJoinStats> serverStats = new ConcurrentHashMap<>();
+    private static Long timeoutMillis = 5000L;
+
+    static void enable() {
+        timeoutMillis = TBNRNetwork.getInstance().getConfig().getLong("join-attempts.timeout-seconds", 5) * 1000;
+        Bukkit.getScheduler().runTaskTimer(TBNRNetwork.getInstance(), new TimeoutSweep(), 20L, 20L);
+    }
 
     @Override
     public void handleNetCommand(NetworkServer sender, JoinAttemptResponse netCommand) {
-        COfflinePlayer offlinePlayerByUUID = Core.getOfflinePlayerByUUID(UUID.fromString(netCommand.playerUUID));
-        if ((offlinePlayerByUUID == null) || !(offlinePlayerByUUID instanceof CPlayer)) return;
-        JoinAttemptEntry entry = null;
-        for (JoinAttemptEntry serverRequest : serverRequests) {
-            CPlayer cPlayer = serverRequest.player.get();
-            if (cPlayer != null && cPlayer.equals(offlinePlayerByUUID) && serverRequest.server.getName().equals(sender.getName())) {
-                entry = serverRequest;
-                break;
-            }
-        }
+        UUID uuid = UUID.fromString(netCommand.playerUUID);
+        JoinAttemptEntry entry = serverRequests.remove(new AttemptKey(uuid, sender.getName()));
         if (entry == null) return;
+        getStats(sender.getName()).answered(netCommand.allowed, System.currentTimeMillis() - entry.sentAt);
+        COfflinePlayer offlinePlayerByUUID = Core.getOfflinePlayerByUUID(uuid);
+        if ((offlinePlayerByUUID == null) || !(offlinePlayerByUUID instanceof CPlayer)) return;
         JoinAttemptDelegate delegate = entry.delegate;
         if (netCommand.allowed) {
+            if (!entry.group.accept()) return;
             delegate.joining(sender, (CPlayer) offlinePlayerByUUID);
+            Matchmaker.joinSent(sender);
             sender.sendPlayerToServer((CPlayer) offlinePlayerByUUID);
-        } else {
+        } else if (entry.group.refuse()) {
             delegate.couldNotJoin(sender, (CPlayer) offlinePlayerByUUID);
         }
-        serverRequests.remove(entry);
     }
 
     public static void attemptJoin(CPlayer player, NetworkServer currentlyDisplaying, JoinAttemptDelegate delegate) {
+        attemptJoin(player, Collections.singletonList(currentlyDisplaying), null, delegate);
+    }
+
+    /**
+     * Asks every one of these servers whether the player can join at the same time. The first to accept gets the player,
+     * and the delegate is only told the player could not join once every server has refused or timed out.
+     *
+     * An attempt the player still has pending with one of these servers is given up on, and its delegate is told.
+     */
+    public static void attemptJoin(CPlayer player, List<NetworkServer> servers, Game game, JoinAttemptDelegate delegate) {
+        if (servers.isEmpty()) {
+            delegate.couldNotJoin(null, player);
+            return;
+        }
         JoinAttempt joinAttempt = new JoinAttempt();
         joinAttempt.playerUUID = player.getUniqueIdentifier().toString();
-        currentlyDisplaying.sendNetCommand(joinAttempt);
-        delegate.sentAttempt(currentlyDisplaying, player);
-        serverRequests.add(new JoinAttemptEntry(new WeakReference<>(player), currentlyDisplaying, delegate));
+        if (game != null) joinAttempt.game = game.name();
+        JoinAttemptGroup group = new JoinAttemptGroup(servers.size());
+        long now = System.currentTimeMillis();
+        for (NetworkServer server : servers) {
+            AttemptKey key = new AttemptKey(player.getUniqueIdentifier(), server.getName());
+            JoinAttemptEntry entry = new JoinAttemptEntry(new WeakReference<>(player), server, delegate, group, now);
+            JoinAttemptEntry previous;
+            //the reply to the old attempt may remove it at any time, so keep going until ours is the one in the map
+            while ((previous = serverRequests.putIfAbsent(key, entry)) != null) {
+                if (serverRequests.remove(key, previous) && previous.group.abandon()) previous.delegate.couldNotJoin(previous.server, player);
+            }
+            getStats(server.getName()).sent();
+            server.sendNetCommand(joinAttempt);
+        }
+        delegate.sentAttempt(servers.get(0), player);
+    }
+
+    public static Map<String, ServerJoinStats> getServerStats() {
+        return Collections.unmodifiableMap(serverStats);
+    }
+
+    private static ServerJoinStats getStats(String serverName) {
+        ServerJoinStats stats = serverStats.get(serverName);
+        if (stats != null) return stats;
+        serverStats.putIfAbsent(serverName, new ServerJoinStats());
+        return serverStats.get(serverName);
     }
 
     public static interface JoinAttemptDelegate {
@@ -50,10 +99,103 @@ public class JoinAttemptHandler implements NetCommandHandler<JoinAttemptResponse
         void joining(NetworkServer server, CPlayer player);
     }
 
+    @Data
+    static class AttemptKey {
+        final UUID player;
+        final String server;
+    }
+
     @Data
     static class JoinAttemptEntry {
         final WeakReference<CPlayer> player;
         final NetworkServer server;
         final JoinAttemptDelegate delegate;
+        final JoinAttemptGroup group;
+        final long sentAt;
+    }
+
+    static class JoinAttemptGroup {
+        private int remaining;
+        private boolean settled = false;
+
+        JoinAttemptGroup(int remaining) {
+            this.remaining = remaining;
+        }
+
+        /**
+         * @return If this is the first server to accept the player.
+         */
+        synchronized boolean accept() {
+            if (settled) return false;
+            settled = true;
+            return true;
+        }
+
+        /**
+         * Gives up on every server that has not answered yet.
+         *
+         * @return If nobody had accepted the player yet.
+         */
+        synchronized boolean abandon() {
+            if (settled) return false;
+            settled = true;
+            return true;
+        }
+
+        /**
+         * @return If this was the last server that could have accepted the player.
+         */
+        synchronized boolean refuse() {
+            if (settled) return false;
+            if (--remaining > 0) return false;
+            settled = true;
+            return true;
+        }
+    }
+
+    /**
+     * How a server has been answering our join attempts.
+     */
+    @Getter
+    public static final class ServerJoinStats {
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong refused = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+        private final AtomicLong totalLatency = new AtomicLong();
+        private final AtomicLong maxLatency = new AtomicLong();
+
+        private void sent() {
+            sent.incrementAndGet();
+        }
+
+        private void answered(boolean allowed, long latency) {
+            (allowed ? accepted : refused).incrementAndGet();
+            totalLatency.addAndGet(latency);
+            long max = maxLatency.get();
+            while (latency > max && !maxLatency.compareAndSet(max, latency)) max = maxLatency.get();
+        }
+
+        public long getAverageLatency() {
+            long answered = accepted.get() + refused.get();
+            return answered == 0 ? 0 : totalLatency.get() / answered;
+        }
+    }
+
+    private static class TimeoutSweep implements Runnable {
+        @Override
+        public void run() {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<AttemptKey, JoinAttemptEntry> request : serverRequests.entrySet()) {
+                JoinAttemptEntry entry = request.getValue();
+                if (now - entry.sentAt < timeoutMillis) continue;
+                //the reply may have won the race to remove it
+                if (!serverRequests.remove(request.getKey(), entry)) continue;
+                getStats(entry.server.getName()).timedOut.incrementAndGet();
+                CPlayer player = entry.player.get();
+                if (player == null || !player.isOnline()) continue;
+                if (entry.group.refuse()) entry.delegate.couldNotJoin(entry.server, player);
+            }
+        }
     }
 }
@@ -0,0 +1,112 @@
+package net.tbnr.dev;
+
+import net.cogzmc.core.Core;
+import net.cogzmc.core.network.NetworkServer;
+import net.cogzmc.core.player.CPlayer;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Picks game servers for players. Servers waiting for players come first, and among those the fullest ones are
+ * preferred so games fill up and start instead of spreading players over many half empty servers.
+ *
+ * Player counts only catch up with a server's status refresh, so players we sent recently are counted on top of them,
+ * and servers that still rank the same are tried in a random order.
+ */
+public final class Matchmaker {
+    private final static String PRE_GAME_STATUS = "pre_game";
+    private final static Long DEFAULT_IN_FLIGHT_SECONDS = 5L;
+
+    /* when we sent each player that may not show up in the server's count yet, written from the network thread */
+    private final static ConcurrentMap<String, Queue<Long>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @return The servers for this game that can take a player, best first.
+     */
+    public static List<NetworkServer> rank(Game game) {
+        List<NetworkServer> candidates = new ArrayList<>();
+        for (NetworkServer server : ServerHelper.getServers(game)) {
+            ServerStatus status = ServerHelper.getServerStatus(server);
+            if (status != null && (!PRE_GAME_STATUS.equals(status.getState()) || getPlayerCount(server) >= getMaxPlayers(game, status))) continue;
+            candidates.add(server);
+        }
+        //the sort is stable, so this is what breaks ties
+        Collections.shuffle(candidates, Core.getRandom());
+        Collections.sort(candidates, new ServerRanking(game));
+        return candidates;
+    }
+
+    public static NetworkServer getBestServer(Game game) {
+        List<NetworkServer> ranked = rank(game);
+        return ranked.isEmpty() ? null : ranked.get(0);
+    }
+
+    /**
+     * Counts a player we just sent to a server until its status has had time to catch up.
+     */
+    static void joinSent(NetworkServer server) {
+        Queue<Long> sent = inFlight.get(server.getName());
+        if (sent == null) {
+            inFlight.putIfAbsent(server.getName(), new ConcurrentLinkedQueue<Long>());
+            sent = inFlight.get(server.getName());
+        }
+        sent.add(System.currentTimeMillis());
+    }
+
+    private static Integer getPlayerCount(NetworkServer server) {
+        Queue<Long> sent = inFlight.get(server.getName());
+        if (sent == null) return server.getOnlineCount();
+        long expired = System.currentTimeMillis() - TBNRNetwork.getInstance().getConfig().getLong("matchmaking.in-flight-seconds", DEFAULT_IN_FLIGHT_SECONDS) * 1000;
+        Long oldest;
+        while ((oldest = sent.peek()) != null && oldest < expired) sent.poll();
+        return server.getOnlineCount() + sent.size();
+    }
+
+    /**
+     * Asks the best few servers for this game whether they can take the player, and sends the player to whichever
+     * accepts first.
+     */
+    public static void findGame(CPlayer player, Game game, JoinAttemptHandler.JoinAttemptDelegate delegate) {
+        List<NetworkServer> ranked = rank(game);
+        if (ranked.isEmpty()) {
+            delegate.couldNotJoin(null, player);
+            return;
+        }
+        int attempts = TBNRNetwork.getInstance().getConfig().getInt("matchmaking.parallel-attempts", 3);
+        JoinAttemptHandler.attemptJoin(player, ranked.subList(0, Math.min(attempts, ranked.size())), game, delegate);
+    }
+
+    private static Integer getMaxPlayers(Game game, ServerStatus status) {
+        return status.getMaxPlayers() == null || status.getMaxPlayers() <= 0 ? game.getMaxPlayers() : status.getMaxPlayers();
+    }
+
+    private static final class ServerRanking implements Comparator<NetworkServer> {
+        private final Game game;
+
+        private ServerRanking(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public int compare(NetworkServer o1, NetworkServer o2) {
+            ServerStatus status1 = ServerHelper.getServerStatus(o1), status2 = ServerHelper.getServerStatus(o2);
+            //servers we have a status for are known to be waiting for players, the rest are a gamble
+            if ((status1 == null) != (status2 == null)) return status1 == null ? 1 : -1;
+            if (status1 == null) return Integer.compare(getPlayerCount(o2), getPlayerCount(o1));
+            int fill = Double.compare(getFill(o2, status2), getFill(o1, status1));
+            if (fill != 0) return fill;
+            return Long.compare(getGameStart(status1), getGameStart(status2));
+        }
+
+        private double getFill(NetworkServer server, ServerStatus status) {
+            return (double) getPlayerCount(server) / getMaxPlayers(game, status);
+        }
+
+        private long getGameStart(ServerStatus status) {
+            return status.getGameStart() == null || status.getGameStart() <= 0 ? Long.MAX_VALUE : status.getGameStart();
+        }
+    }
+}
@@ -5,16 +5,40 @@ import net.cogzmc.core.network.NetCommandHandler;
 import net.cogzmc.core.network.NetworkServer;
 import org.bukkit.Bukkit;
 
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps track of the status of every server on the network. A server broadcasts its status when something in it
+ * changes, and otherwise only repeats it on a slow keepalive. Reports older than the newest one we know of are ignored,
+ * and servers we have not heard from within the expiry time are forgotten.
+ */
 public final class ServerHelper {
-    private static Map<String, String> statusMap = new HashMap<>();
+    private static Map<String, ServerStatus> statusMap = new ConcurrentHashMap<>();
+    private static Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    private static List<StatusListener> statusListeners = new CopyOnWriteArrayList<>();
+
+    /* this server's own status */
+    private static final Long instance = System.currentTimeMillis();
+    private static Long version = 0L;
     private static String current_status = null;
+    private static String current_map = null;
+    private static Long current_game_start = 0L;
+    private static Integer current_max_players = null;
+    private static Integer lastSentOnline = -1;
+    private static Long lastSentAt = 0L;
+
+    private static Long keepaliveMillis;
+    private static Long expireMillis;
 
     static void enable() {
-        Bukkit.getScheduler().runTaskTimer(TBNRNetwork.getInstance(), new StatusHeartbeat(), 400, 400);
+        keepaliveMillis = TBNRNetwork.getInstance().getConfig().getLong("status.keepalive-seconds", 60) * 1000;
+        expireMillis = TBNRNetwork.getInstance().getConfig().getLong("status.expire-seconds", 180) * 1000;
+        long interval = TBNRNetwork.getInstance().getConfig().getLong("status.check-interval", 40L);
+        Bukkit.getScheduler().runTaskTimer(TBNRNetwork.getInstance(), new StatusHeartbeat(), interval, interval);
     }
 
     private static String getRegexForLobby(boolean vip) {
@@ -31,69 +55,157 @@ public final class ServerHelper {
         return Core.getNetworkManager().getServersMatchingRegex("^lobby[0-9]{1,4}$");
     }
 
+    /**
+     * @return Any server for this game, picked at random. Use {@link Matchmaker} to find a game for a player.
+     */
     public static NetworkServer getServer(Game game) {
-        List<NetworkServer> serversMatchingRegex = getServers(game);
-        if (serversMatchingRegex.size() == 0) return null;
-        return serversMatchingRegex.get(Core.getRandom().nextInt(serversMatchingRegex.size()));
+        List<NetworkServer> servers = getServers(game);
+        if (servers.size() == 0) return null;
+        return servers.get(Core.getRandom().nextInt(servers.size()));
+    }
+
+    private static String getRegexFor(Game game) {
+        return "^" + game.name().toLowerCase().replaceAll("_", "") + "[0-9]{1,4}$";
     }
 
     public static List<NetworkServer> getServers(Game game) {
-        String gameName = game.name().toLowerCase().replaceAll("_", "");
-        return Core.getNetworkManager().getServersMatchingRegex("^" + gameName + "[0-9]{1,4}$");
+        return Core.getNetworkManager().getServersMatchingRegex(getRegexFor(game));
+    }
+
+    public static boolean isServerFor(String serverName, Game game) {
+        return serverName.matches(getRegexFor(game));
     }
 
-    private static void setStatus(NetworkServer server, String status) {
+    private static synchronized void receiveStatus(NetworkServer server, ServerStatus status) {
+        ServerStatus known = statusMap.get(server.getName());
+        if (known != null && !status.isNewerThan(known)) {
+            //keepalives repeat the version we have, anything lower is a late delivery
+            if (status.isSameVersionAs(known)) lastSeen.put(server.getName(), System.currentTimeMillis());
+            return;
+        }
         statusMap.put(server.getName(), status);
+        lastSeen.put(server.getName(), System.currentTimeMillis());
+        notifyListeners(server.getName(), status.getState());
+    }
+
+    private static synchronized void forgetStatus(String serverName) {
+        lastSeen.remove(serverName);
+        if (statusMap.remove(serverName) != null) notifyListeners(serverName, null);
+    }
+
+    private static void notifyListeners(String serverName, String status) {
+        for (StatusListener statusListener : statusListeners) {
+            statusListener.onStatusChanged(serverName, status);
+        }
     }
 
     public static String getStatus(NetworkServer server) {
-        if (!statusMap.containsKey(server.getName())) return null;
+        ServerStatus status = statusMap.get(server.getName());
+        return status == null ? null : status.getState();
+    }
+
+    public static ServerStatus getServerStatus(NetworkServer server) {
         return statusMap.get(server.getName());
     }
 
+    /**
+     * Registers a listener that is told whenever a server reports its status or goes offline. Listeners are called
+     * from whichever thread delivered the net command.
+     */
+    public static void addStatusListener(StatusListener listener) {
+        statusListeners.add(listener);
+    }
+
     public static void requestStatus(NetworkServer server) {
         server.sendNetCommand(new RequestStatusNetCommand());
     }
 
     public static void setStatus(String status) {
+        setStatus(status, current_map, current_game_start);
+    }
+
+    /**
+     * @param gameStart When the game started, or when it is expected to start if it has not yet.
+     */
+    public static synchronized void setStatus(String status, String map, Long gameStart) {
         current_status = status;
-        sendStatus();
+        current_map = map;
+        current_game_start = gameStart;
+        statusChanged();
+    }
+
+    public static synchronized void setGameStart(Long gameStart) {
+        current_game_start = gameStart;
+        if (current_status != null) statusChanged();
+    }
+
+    public static synchronized void setMaxPlayers(Integer maxPlayers) {
+        current_max_players = maxPlayers;
+        if (current_status != null) statusChanged();
     }
 
     public static boolean isLobbyServer(NetworkServer server, boolean vip) {
         return server.getName().matches(getRegexForLobby(vip));
     }
 
-    private static void sendStatus() {
-        ServerStatusNetCommand serverStatusNetCommand = new ServerStatusNetCommand(current_status);
-        Core.getNetworkManager().sendMassNetCommand(serverStatusNetCommand);
+    private static void statusChanged() {
+        version++;
+        sendStatus();
+    }
+
+    private static synchronized void sendStatus() {
+        if (Core.getNetworkManager() == null) return;
+        lastSentOnline = Core.getOnlinePlayers().size();
+        lastSentAt = System.currentTimeMillis();
+        Core.getNetworkManager().sendMassNetCommand(getStatusCommand());
+    }
+
+    private static synchronized ServerStatusNetCommand getStatusCommand() {
+        return new ServerStatusNetCommand(current_status, Core.getOnlinePlayers().size(),
+                current_max_players == null ? Bukkit.getMaxPlayers() : current_max_players,
+                current_map, current_game_start, instance, version);
     }
 
     static class NetCommandHandlr implements NetCommandHandler<ServerStatusNetCommand> {
         @Override
         public void handleNetCommand(NetworkServer sender, ServerStatusNetCommand netCommand) {
-            setStatus(sender, netCommand.getStatus());
+            if (netCommand.getStatus() == null) return;
+            receiveStatus(sender, ServerStatus.from(netCommand));
         }
     }
 
     static class ReqCommandHandlr implements NetCommandHandler<RequestStatusNetCommand> {
         @Override
         public void handleNetCommand(NetworkServer sender, RequestStatusNetCommand netCommand) {
-            if (current_status != null) sender.sendNetCommand(new ServerStatusNetCommand(current_status));
+            if (current_status != null) sender.sendNetCommand(getStatusCommand());
         }
     }
 
     static class OfflineCommandHandlr implements NetCommandHandler<ServerOfflineNetCommand> {
         @Override
         public void handleNetCommand(NetworkServer sender, ServerOfflineNetCommand netCommand) {
-            statusMap.remove(sender.getName());
+            forgetStatus(sender.getName());
         }
     }
 
+    public static interface StatusListener {
+        void onStatusChanged(String serverName, String status);
+    }
+
     static class StatusHeartbeat implements Runnable {
         @Override
         public void run() {
-            sendStatus();
+            synchronized (ServerHelper.class) {
+                if (current_status != null) {
+                    if (Core.getOnlinePlayers().size() != lastSentOnline) statusChanged();
+                    else if (System.currentTimeMillis() - lastSentAt >= keepaliveMillis) sendStatus();
+                }
+            }
+            long now = System.currentTimeMillis();
+            for (Iterator<Map.Entry<String, Long>> iterator = lastSeen.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<String, Long> entry = iterator.next();
+                if (now - entry.getValue() > expireMillis) forgetStatus(entry.getKey());
+            }
         }
     }
 }
@@ -0,0 +1,32 @@
+package net.tbnr.dev;
+
+import lombok.Data;
+
+/**
+ * What a server last told the network about itself. The instance identifies one run of the server and the version
+ * increases every time something in the status changes, so older reports can be told apart from newer ones.
+ */
+@Data
+public final class ServerStatus {
+    private final String state;
+    private final Integer onlineCount;
+    private final Integer maxPlayers;
+    private final String map;
+    /* when the game started, or is expected to start while in the lobby; 0 if unknown */
+    private final Long gameStart;
+    private final Long instance;
+    private final Long version;
+
+    static ServerStatus from(ServerStatusNetCommand netCommand) {
+        return new ServerStatus(netCommand.status, netCommand.online, netCommand.max, netCommand.map, netCommand.gameStart, netCommand.instance, netCommand.version);
+    }
+
+    boolean isNewerThan(ServerStatus status) {
+        if (!instance.equals(status.instance)) return instance > status.instance;
+        return version > status.version;
+    }
+
+    boolean isSameVersionAs(ServerStatus status) {
+        return instance.equals(status.instance) && version.equals(status.version);
+    }
+}
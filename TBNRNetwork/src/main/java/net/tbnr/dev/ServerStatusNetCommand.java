@@ -1,7 +1,6 @@
 package net.tbnr.dev;
 
 import lombok.Data;
-import lombok.NonNull;
 import net.cogzmc.core.network.NetCommand;
 import net.cogzmc.core.network.NetCommandField;
 
@@ -9,12 +8,24 @@ import net.cogzmc.core.network.NetCommandField;
 @Data
 public final class ServerStatusNetCommand implements NetCommand {
     public String status;
+    public int online;
+    public int max;
+    public String map;
+    public long gameStart;
+    public long instance;
+    public long version;
 
     public ServerStatusNetCommand() {
 
     }
 
-    public ServerStatusNetCommand(String status) {
+    public ServerStatusNetCommand(String status, int online, int max, String map, long gameStart, long instance, long version) {
         this.status = status;
+        this.online = online;
+        this.max = max;
+        this.map = map;
+        this.gameStart = gameStart;
+        this.instance = instance;
+        this.version = version;
     }
 }
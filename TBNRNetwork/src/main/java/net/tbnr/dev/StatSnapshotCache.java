@@ -0,0 +1,87 @@
+package net.tbnr.dev;
+
+import lombok.Data;
+import net.cogzmc.core.player.COfflinePlayer;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, expiring cache of stat snapshots for players looked up by name. Accessed from async lookup tasks, so
+ * every access to the backing map is synchronized.
+ */
+public final class StatSnapshotCache {
+    private final Integer maxEntries;
+    private final Long expireMillis;
+    private final Map<String, StatSnapshot> snapshots;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public StatSnapshotCache(final Integer maxEntries, Long expireMillis) {
+        this.maxEntries = maxEntries;
+        this.expireMillis = expireMillis;
+        this.snapshots = new LinkedHashMap<String, StatSnapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StatSnapshot> eldest) {
+                return size() > StatSnapshotCache.this.maxEntries;
+            }
+        };
+    }
+
+    public StatSnapshot get(String name) {
+        String key = name.toLowerCase();
+        synchronized (snapshots) {
+            StatSnapshot snapshot = snapshots.get(key);
+            if (snapshot != null && snapshot.taken + expireMillis < System.currentTimeMillis()) {
+                snapshots.remove(key);
+                snapshot = null;
+            }
+            if (snapshot == null) misses.incrementAndGet();
+            else hits.incrementAndGet();
+            return snapshot;
+        }
+    }
+
+    public void put(StatSnapshot snapshot) {
+        synchronized (snapshots) {
+            snapshots.put(snapshot.name.toLowerCase(), snapshot);
+        }
+    }
+
+    public Integer size() {
+        synchronized (snapshots) {
+            return snapshots.size();
+        }
+    }
+
+    public Long getHits() {
+        return hits.get();
+    }
+
+    public Long getMisses() {
+        return misses.get();
+    }
+
+    public static StatSnapshot snapshotOf(COfflinePlayer player) {
+        Map<Game, Map<Stat, Object>> values = new EnumMap<>(Game.class);
+        for (Game game : Game.values()) {
+            Map<Stat, Object> stats = new EnumMap<>(Stat.class);
+            for (Stat stat : Stat.values()) {
+                Integer value = StatsManager.getStat(game, stat, player, Integer.class);
+                stats.put(stat, value == null ? stat.defaultValue : value);
+            }
+            values.put(game, stats);
+        }
+        return new StatSnapshot(player.getName(), values, System.currentTimeMillis());
+    }
+
+    @Data
+    public static final class StatSnapshot {
+        private final String name;
+        private final Map<Game, Map<Stat, Object>> values;
+        private final long taken;
+    }
+}
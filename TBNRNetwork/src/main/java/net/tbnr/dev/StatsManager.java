@@ -1,23 +1,96 @@
 package net.tbnr.dev;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import net.cogzmc.core.Core;
 import net.cogzmc.core.player.COfflinePlayer;
 import net.cogzmc.core.player.CPlayer;
+import net.cogzmc.core.player.CPlayerConnectionListener;
+import net.cogzmc.core.player.CPlayerJoinException;
 import net.cogzmc.core.player.DatabaseConnectException;
+import net.cogzmc.core.player.mongo.CMongoDatabase;
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Sound;
+import org.bukkit.configuration.ConfigurationSection;
 
+import java.net.InetAddress;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stats are stored as settings on the player document. Writes are kept in memory, and the stats that changed are saved
+ * in one asynchronous batch, either on the flush interval, when a game ends, or when the player disconnects.
+ *
+ * The player objects are only ever touched from the main thread. A flush copies the changed stats there, and only the
+ * database write of that copy happens on another thread. Every write goes through the same single thread, so they land
+ * in the order they were copied and an older copy can never overwrite a newer one. A stat stops being dirty once the
+ * value that was written is confirmed, so a failed write is retried by the next flush and a newer value is never lost.
+ */
 public final class StatsManager {
+    private final static Long DEFAULT_FLUSH_INTERVAL = 200L;
+
+    /* only touched from the main thread */
+    private static final Map<COfflinePlayer, Map<String, Object>> dirtyStats = new LinkedHashMap<>();
+    /* the player documents are described once, in the leaderboard section */
+    private static String collection;
+    private static String settingsKey;
+    private static String uuidKey;
+    private static ExecutorService writer;
+
+    static void enable() {
+        ConfigurationSection players = TBNRNetwork.getInstance().getConfig().getConfigurationSection("leaderboard");
+        collection = players.getString("collection", "users");
+        settingsKey = players.getString("settings-key", "settings");
+        uuidKey = players.getString("uuid-key", "uuid");
+        writer = Executors.newSingleThreadExecutor();
+        long interval = TBNRNetwork.getInstance().getConfig().getLong("stats-flush-interval", DEFAULT_FLUSH_INTERVAL);
+        Bukkit.getScheduler().runTaskTimer(TBNRNetwork.getInstance(), new FlushTask(), interval, interval);
+        Core.getPlayerManager().registerCPlayerConnectionListener(new FlushOnDisconnect());
+    }
+
+    static void disable() {
+        //let the writes that are already queued land first, they are older than what is saved here
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        SaveTask saveTask = new SaveTask(snapshot(dirtyStats.keySet()));
+        saveTask.run();
+        saveTask.confirm();
+    }
+
     public static <T> T getStat(Game game, Stat stat, COfflinePlayer player, Class<T> clazz) {
-        return player.getSettingValue("stat_" + game.name() + "_" + stat.name(), clazz);
+        return player.getSettingValue(getKey(game, stat), clazz);
     }
 
     public static void setStat(Game game, Stat stat, COfflinePlayer player, Object value) {
-        player.storeSettingValue("stat_" + game.name() + "_" + stat.name(), value);
-        try {
-            player.saveIntoDatabase();
-        } catch (DatabaseConnectException e) {
-            e.printStackTrace();
+        String key = getKey(game, stat);
+        player.storeSettingValue(key, value);
+        Map<String, Object> stats = dirtyStats.get(player);
+        if (stats == null) {
+            stats = new HashMap<>();
+            dirtyStats.put(player, stats);
         }
+        stats.put(key, value);
+        TBNRNetwork.getInstance().getLeaderboardManager().statChanged(game, stat, player, value);
+    }
+
+    /**
+     * Writes every player with pending stat changes to the database, off the main thread.
+     */
+    public static void flush() {
+        if (dirtyStats.isEmpty()) return;
+        save(snapshot(dirtyStats.keySet()));
+    }
+
+    public static void flush(COfflinePlayer player) {
+        if (!dirtyStats.containsKey(player)) return;
+        save(snapshot(Collections.singleton(player)));
     }
 
     public static void statChanged(Stat stat, Integer delta, CPlayer player) {
@@ -29,4 +102,122 @@ public final class StatsManager {
         );
         player.playSoundForPlayer(Sound.ORB_PICKUP, 1f, 1 + ((delta > 0 ? 1f : -1f) * 0.2f));
     }
+
+    private static String getKey(Game game, Stat stat) {
+        return "stat_" + game.name() + "_" + stat.name();
+    }
+
+    private static List<PendingStats> snapshot(Collection<COfflinePlayer> players) {
+        List<PendingStats> snapshot = new ArrayList<>();
+        for (COfflinePlayer player : players) {
+            Map<String, Object> stats = dirtyStats.get(player);
+            if (stats != null && !stats.isEmpty()) snapshot.add(new PendingStats(player, new HashMap<>(stats)));
+        }
+        return snapshot;
+    }
+
+    private static void save(List<PendingStats> snapshot) {
+        if (snapshot.isEmpty()) return;
+        final SaveTask saveTask = new SaveTask(snapshot);
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                saveTask.run();
+                //the plugin is shutting down, disable() confirms everything itself
+                if (!TBNRNetwork.getInstance().isEnabled()) return;
+                Bukkit.getScheduler().runTask(TBNRNetwork.getInstance(), new Runnable() {
+                    @Override
+                    public void run() {
+                        saveTask.confirm();
+                    }
+                });
+            }
+        });
+    }
+
+    private static final class PendingStats {
+        private final COfflinePlayer player;
+        private final UUID uuid;
+        private final Map<String, Object> stats;
+        private boolean written = false;
+
+        private PendingStats(COfflinePlayer player, Map<String, Object> stats) {
+            this.player = player;
+            this.uuid = player.getUniqueIdentifier();
+            this.stats = stats;
+        }
+    }
+
+    private static class SaveTask implements Runnable {
+        private final List<PendingStats> snapshot;
+
+        private SaveTask(List<PendingStats> snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Writes the snapshot, this never touches the player objects and is safe to run on any thread.
+         */
+        @Override
+        public void run() {
+            if (!(Core.getInstance().getCDatabase() instanceof CMongoDatabase)) return;
+            DBCollection players = ((CMongoDatabase) Core.getInstance().getCDatabase()).getCollection(collection);
+            for (PendingStats pending : snapshot) {
+                BasicDBObject set = new BasicDBObject();
+                for (Map.Entry<String, Object> stat : pending.stats.entrySet()) {
+                    set.append(settingsKey + "." + stat.getKey(), stat.getValue());
+                }
+                try {
+                    players.update(new BasicDBObject(uuidKey, pending.uuid.toString()), new BasicDBObject("$set", set));
+                    pending.written = true;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        /**
+         * Marks what was written as clean. Call this from the main thread once {@link #run()} is done.
+         */
+        private void confirm() {
+            boolean mongo = Core.getInstance().getCDatabase() instanceof CMongoDatabase;
+            for (PendingStats pending : snapshot) {
+                if (!mongo) {
+                    //nothing to write around, save the whole player here on the main thread instead
+                    try {
+                        pending.player.saveIntoDatabase();
+                        pending.written = true;
+                    } catch (DatabaseConnectException e) {
+                        e.printStackTrace();
+                    }
+                }
+                if (!pending.written) continue;
+                Map<String, Object> stats = dirtyStats.get(pending.player);
+                if (stats == null) continue;
+                for (Map.Entry<String, Object> written : pending.stats.entrySet()) {
+                    //a stat that changed again while we were writing is still dirty
+                    if (Objects.equals(stats.get(written.getKey()), written.getValue())) stats.remove(written.getKey());
+                }
+                if (stats.isEmpty()) dirtyStats.remove(pending.player);
+            }
+        }
+    }
+
+    private static class FlushTask implements Runnable {
+        @Override
+        public void run() {
+            flush();
+        }
+    }
+
+    private static class FlushOnDisconnect implements CPlayerConnectionListener {
+        @Override
+        public void onPlayerLogin(CPlayer player, InetAddress address) throws CPlayerJoinException {
+        }
+
+        @Override
+        public void onPlayerDisconnect(CPlayer player) {
+            flush(player);
+        }
+    }
 }
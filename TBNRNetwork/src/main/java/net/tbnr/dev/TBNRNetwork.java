@@ -6,6 +6,7 @@ import net.cogzmc.core.modular.ModularPlugin;
 import net.cogzmc.core.modular.ModuleMeta;
 import net.cogzmc.core.player.CPlayer;
 import net.tbnr.dev.commands.*;
+import net.tbnr.dev.leaderboard.LeaderboardManager;
 import org.bukkit.ChatColor;
 import org.bukkit.command.defaults.ClearCommand;
 import org.bukkit.event.EventHandler;
@@ -15,6 +16,8 @@ import org.bukkit.event.player.PlayerJoinEvent;
 @ModuleMeta(description = "Manages the TBNR network.", name = "TBNRNetwork")
 public final class TBNRNetwork extends ModularPlugin {
     @Getter private static TBNRNetwork instance;
+    @Getter private StatSnapshotCache statCache;
+    @Getter private LeaderboardManager leaderboardManager;
 
     @Override
     protected void onModuleEnable() throws Exception {
@@ -26,17 +29,27 @@ public final class TBNRNetwork extends ModularPlugin {
             Core.getNetworkManager().registerNetCommandHandler(new ServerHelper.OfflineCommandHandlr(), ServerOfflineNetCommand.class);
             Core.getNetworkManager().registerNetCommandHandler(new JoinAttemptHandler(), JoinAttemptResponse.class);
             ServerHelper.enable();
+            JoinAttemptHandler.enable();
         }
+        StatsManager.enable();
+        leaderboardManager = new LeaderboardManager(getConfig().getConfigurationSection("leaderboard"));
+        statCache = new StatSnapshotCache(getConfig().getInt("stat-cache.max-entries", 256), getConfig().getLong("stat-cache.expire-seconds", 300) * 1000);
         registerCommand(new HubCommand());
         registerCommand(new StatCommand());
         registerCommand(new EndCommand());
         registerCommand(new ClearChatCommand());
         registerCommand(new PassCommand());
         registerCommand(new OPMe());
+        registerCommand(new TopCommand());
+        if (Core.getNetworkManager() != null) {
+            registerCommand(new PlayCommand());
+            registerCommand(new JoinStatsCommand());
+        }
     }
 
     @Override
     protected void onModuleDisable() throws Exception {
+        StatsManager.disable();
         if (Core.getNetworkManager() != null) Core.getNetworkManager().sendMassNetCommand(new ServerOfflineNetCommand());
     }
 }
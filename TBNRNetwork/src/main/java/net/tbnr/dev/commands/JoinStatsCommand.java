@@ -0,0 +1,40 @@
+package net.tbnr.dev.commands;
+
+import net.cogzmc.core.modular.command.CommandException;
+import net.cogzmc.core.modular.command.CommandPermission;
+import net.cogzmc.core.modular.command.ModuleCommand;
+import net.tbnr.dev.JoinAttemptHandler;
+import net.tbnr.dev.TBNRNetwork;
+import org.bukkit.command.CommandSender;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@CommandPermission("tbnr.joinstats")
+public final class JoinStatsCommand extends ModuleCommand {
+    public JoinStatsCommand() {
+        super("joinstats");
+    }
+
+    @Override
+    protected void handleCommandUnspecific(CommandSender sender, String[] args) throws CommandException {
+        TBNRNetwork instance = TBNRNetwork.getInstance();
+        Map<String, JoinAttemptHandler.ServerJoinStats> stats = new TreeMap<>(JoinAttemptHandler.getServerStats());
+        sender.sendMessage(instance.getFormat("join-stats.header"));
+        if (stats.isEmpty()) {
+            sender.sendMessage(instance.getFormat("join-stats.empty"));
+            return;
+        }
+        for (Map.Entry<String, JoinAttemptHandler.ServerJoinStats> entry : stats.entrySet()) {
+            JoinAttemptHandler.ServerJoinStats serverStats = entry.getValue();
+            sender.sendMessage(instance.getFormat("join-stats.line",
+                    new String[]{"<server>", entry.getKey()},
+                    new String[]{"<sent>", String.valueOf(serverStats.getSent().get())},
+                    new String[]{"<accepted>", String.valueOf(serverStats.getAccepted().get())},
+                    new String[]{"<refused>", String.valueOf(serverStats.getRefused().get())},
+                    new String[]{"<timeouts>", String.valueOf(serverStats.getTimedOut().get())},
+                    new String[]{"<average>", String.valueOf(serverStats.getAverageLatency())},
+                    new String[]{"<max>", String.valueOf(serverStats.getMaxLatency().get())}));
+        }
+    }
+}
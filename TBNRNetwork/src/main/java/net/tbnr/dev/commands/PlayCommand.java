@@ -0,0 +1,56 @@
+package net.tbnr.dev.commands;
+
+import net.cogzmc.core.modular.command.ArgumentRequirementException;
+import net.cogzmc.core.modular.command.CommandException;
+import net.cogzmc.core.modular.command.CommandMeta;
+import net.cogzmc.core.modular.command.ModuleCommand;
+import net.cogzmc.core.network.NetworkServer;
+import net.cogzmc.core.player.CPlayer;
+import net.cogzmc.core.player.CooldownUnexpiredException;
+import net.tbnr.dev.Game;
+import net.tbnr.dev.JoinAttemptHandler;
+import net.tbnr.dev.Matchmaker;
+import net.tbnr.dev.TBNRNetwork;
+
+import java.util.concurrent.TimeUnit;
+
+@CommandMeta(aliases = {"join", "findgame"}, usage = "/play [game]")
+public final class PlayCommand extends ModuleCommand implements JoinAttemptHandler.JoinAttemptDelegate {
+    public PlayCommand() {
+        super("play");
+    }
+
+    @Override
+    protected void handleCommand(CPlayer player, String[] args) throws CommandException {
+        if (args.length > 1) throw new ArgumentRequirementException("Too many arguments!");
+        Game game = Game.SURVIVAL_GAMES;
+        if (args.length == 1) {
+            try {
+                game = Game.valueOf(args[0].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ArgumentRequirementException("You have specified an invalid game!");
+            }
+        }
+        try {
+            player.getCooldownManager().testCooldown("find_game", 3L, TimeUnit.SECONDS);
+        } catch (CooldownUnexpiredException e) {
+            return;
+        }
+        Matchmaker.findGame(player, game, this);
+    }
+
+    @Override
+    public void sentAttempt(NetworkServer server, CPlayer player) {
+        player.sendMessage(TBNRNetwork.getInstance().getFormat("matchmaking.searching"));
+    }
+
+    @Override
+    public void couldNotJoin(NetworkServer server, CPlayer player) {
+        player.sendMessage(TBNRNetwork.getInstance().getFormat("matchmaking.no-game"));
+    }
+
+    @Override
+    public void joining(NetworkServer server, CPlayer player) {
+        player.sendMessage(TBNRNetwork.getInstance().getFormat("matchmaking.joining", new String[]{"<server>", server.getName()}));
+    }
+}
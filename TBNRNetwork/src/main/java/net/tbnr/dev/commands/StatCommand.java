@@ -9,48 +9,86 @@ import net.cogzmc.core.player.COfflinePlayer;
 import net.cogzmc.core.player.CPlayer;
 import net.tbnr.dev.Game;
 import net.tbnr.dev.Stat;
-import net.tbnr.dev.StatsManager;
+import net.tbnr.dev.StatSnapshotCache;
 import net.tbnr.dev.TBNRNetwork;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
 
 import java.util.List;
+import java.util.Map;
 
 @CommandMeta(aliases = {"records"})
 public final class StatCommand extends ModuleCommand {
+    private final static String CACHE_INFO_FLAG = "-cache";
 
     public StatCommand() {
         super("stats");
     }
 
     @Override
-    protected void handleCommand(CPlayer player, String[] args) throws CommandException {
+    protected void handleCommand(final CPlayer player, String[] args) throws CommandException {
         if (args.length > 1) throw new ArgumentRequirementException("Too many arguments!");
-        COfflinePlayer target;
-        if (args.length == 0) target = player;
-        else {
-            List<COfflinePlayer> players = Core.getPlayerManager().getOfflinePlayerByName(args[0]);
-            if (players.size() != 1) throw new ArgumentRequirementException("The player you specified does not exist (or is not specific enough)!");
-            target = players.get(0);
+        if (args.length == 0) {
+            sendStats(player, StatSnapshotCache.snapshotOf(player));
+            return;
         }
-        if (target == null) throw new ArgumentRequirementException("Invalid player name!");
-        for (Game game : Game.values()) {
-            StringBuilder sb = new StringBuilder();
-            String[] split = game.name().split("_");
-            for (String s1 : split) {
-                char[] chars = s1.toLowerCase().toCharArray();
-                for (int i = 0; i < chars.length; i++) {
-                    sb.append(i == 0 ? Character.toUpperCase(chars[i]) : chars[i]);
+        final StatSnapshotCache cache = TBNRNetwork.getInstance().getStatCache();
+        if (args[0].equalsIgnoreCase(CACHE_INFO_FLAG) && player.hasPermission("tbnr.stats.cache")) {
+            player.sendMessage(ChatColor.GRAY + "Stat cache: " + cache.size() + " entries, " + cache.getHits() + " hits, " + cache.getMisses() + " misses.");
+            return;
+        }
+        final String name = args[0];
+        for (CPlayer onlinePlayer : Core.getOnlinePlayers()) {
+            if (!onlinePlayer.getName().equalsIgnoreCase(name)) continue;
+            sendStats(player, StatSnapshotCache.snapshotOf(onlinePlayer));
+            return;
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(TBNRNetwork.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                StatSnapshotCache.StatSnapshot snapshot = cache.get(name);
+                if (snapshot == null) {
+                    List<COfflinePlayer> players = Core.getPlayerManager().getOfflinePlayerByName(name);
+                    if (players.size() == 1) {
+                        snapshot = StatSnapshotCache.snapshotOf(players.get(0));
+                        cache.put(snapshot);
+                    }
                 }
-                sb.append(" ");
+                final StatSnapshotCache.StatSnapshot result = snapshot;
+                Bukkit.getScheduler().runTask(TBNRNetwork.getInstance(), new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!player.isOnline()) return;
+                        if (result == null) player.sendMessage(ChatColor.RED + "The player you specified does not exist (or is not specific enough)!");
+                        else sendStats(player, result);
+                    }
+                });
             }
-            TBNRNetwork instance = TBNRNetwork.getInstance();
-            player.sendMessage(instance.getFormat("stat.game", new String[]{"<game>", sb.toString().trim()}));
-            for (Stat stat : Stat.values()) {
-                Integer stat1 = StatsManager.getStat(game, stat, target, Integer.class);
-                StringBuilder builder = new StringBuilder(stat.name().toLowerCase().replaceAll("_", " "));
+        });
+    }
+
+    private static void sendStats(CPlayer player, StatSnapshotCache.StatSnapshot snapshot) {
+        TBNRNetwork instance = TBNRNetwork.getInstance();
+        for (Map.Entry<Game, Map<Stat, Object>> gameEntry : snapshot.getValues().entrySet()) {
+            player.sendMessage(instance.getFormat("stat.game", new String[]{"<game>", getNiceName(gameEntry.getKey())}));
+            for (Map.Entry<Stat, Object> statEntry : gameEntry.getValue().entrySet()) {
+                StringBuilder builder = new StringBuilder(statEntry.getKey().name().toLowerCase().replaceAll("_", " "));
                 builder.setCharAt(0, Character.toUpperCase(builder.charAt(0)));
-                player.sendMessage(instance.getFormat("stat.stat", new String[]{"<stat>", builder.toString()}, new String[]{"<value>", String.valueOf(stat1 == null ? stat.defaultValue : stat1)}));
+                player.sendMessage(instance.getFormat("stat.stat", new String[]{"<stat>", builder.toString()}, new String[]{"<value>", String.valueOf(statEntry.getValue())}));
             }
         }
     }
-}
 
+    private static String getNiceName(Game game) {
+        StringBuilder sb = new StringBuilder();
+        String[] split = game.name().split("_");
+        for (String s1 : split) {
+            char[] chars = s1.toLowerCase().toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                sb.append(i == 0 ? Character.toUpperCase(chars[i]) : chars[i]);
+            }
+            sb.append(" ");
+        }
+        return sb.toString().trim();
+    }
+}
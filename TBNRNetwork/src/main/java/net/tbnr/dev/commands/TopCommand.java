@@ -0,0 +1,43 @@
+package net.tbnr.dev.commands;
+
+import com.google.common.collect.ImmutableList;
+import net.cogzmc.core.modular.command.ArgumentRequirementException;
+import net.cogzmc.core.modular.command.CommandException;
+import net.cogzmc.core.modular.command.CommandMeta;
+import net.cogzmc.core.modular.command.ModuleCommand;
+import net.tbnr.dev.Game;
+import net.tbnr.dev.Stat;
+import net.tbnr.dev.TBNRNetwork;
+import net.tbnr.dev.leaderboard.LeaderboardEntry;
+import org.bukkit.command.CommandSender;
+
+@CommandMeta(aliases = {"leaderboard", "lb"}, usage = "/top [stat] [game]")
+public final class TopCommand extends ModuleCommand {
+    public TopCommand() {
+        super("top");
+    }
+
+    @Override
+    protected void handleCommandUnspecific(CommandSender sender, String[] args) throws CommandException {
+        if (args.length > 2) throw new ArgumentRequirementException("Too many arguments!");
+        Stat stat = Stat.POINTS;
+        Game game = Game.SURVIVAL_GAMES;
+        try {
+            if (args.length > 0) stat = Stat.valueOf(args[0].toUpperCase());
+            if (args.length > 1) game = Game.valueOf(args[1].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ArgumentRequirementException("You have specified an invalid stat or game!");
+        }
+        TBNRNetwork instance = TBNRNetwork.getInstance();
+        ImmutableList<LeaderboardEntry> top = instance.getLeaderboardManager().getTop(game, stat);
+        sender.sendMessage(instance.getFormat("top.header", new String[]{"<stat>", stat.name().replaceAll("_", " ").toLowerCase()}, new String[]{"<game>", game.name().replaceAll("_", " ").toLowerCase()}));
+        if (top.isEmpty()) {
+            sender.sendMessage(instance.getFormat("top.empty"));
+            return;
+        }
+        for (int i = 0; i < top.size(); i++) {
+            LeaderboardEntry entry = top.get(i);
+            sender.sendMessage(instance.getFormat("top.line", new String[]{"<rank>", String.valueOf(i + 1)}, new String[]{"<name>", entry.getName()}, new String[]{"<value>", String.valueOf(entry.getValue())}));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package net.tbnr.dev.leaderboard;
+
+import com.google.common.collect.ImmutableList;
+import lombok.Getter;
+import net.tbnr.dev.Game;
+import net.tbnr.dev.Stat;
+
+import java.util.*;
+
+/**
+ * The top entries for a single {@link Game} and {@link Stat}. Only the top {@code size} players are tracked; the
+ * ranking is kept sorted as values change, and {@link #getTop()} hands out a list that is rebuilt on each change so
+ * readers never sort.
+ */
+public final class Leaderboard {
+    private final static Comparator<LeaderboardEntry> RANKING = new Comparator<LeaderboardEntry>() {
+        @Override
+        public int compare(LeaderboardEntry o1, LeaderboardEntry o2) {
+            int compare = o2.getValue().compareTo(o1.getValue());
+            if (compare != 0) return compare;
+            return o1.getUuid().compareTo(o2.getUuid());
+        }
+    };
+
+    @Getter private final Game game;
+    @Getter private final Stat stat;
+    private final Integer size;
+    private final Map<UUID, LeaderboardEntry> entries = new HashMap<>();
+    private final TreeSet<LeaderboardEntry> ranking = new TreeSet<>(RANKING);
+    @Getter private ImmutableList<LeaderboardEntry> top = ImmutableList.of();
+
+    Leaderboard(Game game, Stat stat, Integer size) {
+        this.game = game;
+        this.stat = stat;
+        this.size = size;
+    }
+
+    void update(UUID uuid, String name, Integer value) {
+        LeaderboardEntry entry = new LeaderboardEntry(uuid, name, value);
+        LeaderboardEntry existing = entries.get(uuid);
+        if (entry.equals(existing)) return;
+        if (existing == null && ranking.size() >= size && RANKING.compare(entry, ranking.last()) >= 0) return;
+        if (existing != null) ranking.remove(existing);
+        ranking.add(entry);
+        entries.put(uuid, entry);
+        while (ranking.size() > size) entries.remove(ranking.pollLast().getUuid());
+        top = ImmutableList.copyOf(ranking);
+    }
+
+    void replace(Collection<LeaderboardEntry> newEntries) {
+        entries.clear();
+        ranking.clear();
+        for (LeaderboardEntry newEntry : newEntries) {
+            LeaderboardEntry existing = entries.put(newEntry.getUuid(), newEntry);
+            if (existing != null) ranking.remove(existing);
+            ranking.add(newEntry);
+        }
+        while (ranking.size() > size) entries.remove(ranking.pollLast().getUuid());
+        top = ImmutableList.copyOf(ranking);
+    }
+
+    public Integer getRankOf(UUID uuid) {
+        LeaderboardEntry entry = entries.get(uuid);
+        if (entry == null) return null;
+        return top.indexOf(entry) + 1;
+    }
+}
@@ -0,0 +1,12 @@
+package net.tbnr.dev.leaderboard;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+@Value
+public final class LeaderboardEntry {
+    private UUID uuid;
+    private String name;
+    private Integer value;
+}
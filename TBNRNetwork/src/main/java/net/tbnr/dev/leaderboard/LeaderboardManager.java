@@ -0,0 +1,158 @@
+package net.tbnr.dev.leaderboard;
+
+import com.google.common.collect.ImmutableList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import net.cogzmc.core.Core;
+import net.cogzmc.core.player.COfflinePlayer;
+import net.cogzmc.core.player.CPlayer;
+import net.cogzmc.core.player.mongo.CMongoDatabase;
+import net.tbnr.dev.Game;
+import net.tbnr.dev.Stat;
+import net.tbnr.dev.StatsManager;
+import net.tbnr.dev.TBNRNetwork;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.*;
+
+/**
+ * Holds a {@link Leaderboard} for every {@link Game} and {@link Stat}. Every server loads the boards from the player
+ * collection once when it starts, and from then on they are fed by {@link StatsManager#setStat} as stats change.
+ *
+ * The hub calls {@link #startReconciling()} to also rebuild them in the background, to pick up changes made on other
+ * servers. Any other server can do the same by turning on {@code reconcile}, but as it is a query per board it should
+ * be kept to a few. A reconciling server makes sure each board's field is indexed.
+ */
+public final class LeaderboardManager {
+    private final Map<Game, Map<Stat, Leaderboard>> leaderboards = new EnumMap<>(Game.class);
+    private final Integer size;
+    private final String collection;
+    private final String settingsKey;
+    private final String uuidKey;
+    private final String nameKey;
+    private final Long reconcileInterval;
+    private boolean reconciling = false;
+
+    public LeaderboardManager(ConfigurationSection config) {
+        size = config.getInt("size", 10);
+        collection = config.getString("collection", "users");
+        settingsKey = config.getString("settings-key", "settings");
+        uuidKey = config.getString("uuid-key", "uuid");
+        nameKey = config.getString("name-key", "last_username");
+        for (Game game : Game.values()) {
+            Map<Stat, Leaderboard> boards = new EnumMap<>(Stat.class);
+            for (Stat stat : Stat.values()) {
+                boards.put(stat, new Leaderboard(game, stat, size));
+            }
+            leaderboards.put(game, boards);
+        }
+        reconcileInterval = config.getLong("reconcile-interval", 6000L);
+        if (!(Core.getInstance().getCDatabase() instanceof CMongoDatabase)) return;
+        if (config.getBoolean("reconcile", false)) startReconciling();
+        else Bukkit.getScheduler().runTaskAsynchronously(TBNRNetwork.getInstance(), new ReconcileTask((CMongoDatabase) Core.getInstance().getCDatabase(), false));
+    }
+
+    /**
+     * Rebuilds the boards from the player collection every {@code reconcile-interval} ticks, starting now.
+     */
+    public void startReconciling() {
+        if (reconciling || !(Core.getInstance().getCDatabase() instanceof CMongoDatabase)) return;
+        reconciling = true;
+        Bukkit.getScheduler().runTaskTimerAsynchronously(TBNRNetwork.getInstance(), new ReconcileTask((CMongoDatabase) Core.getInstance().getCDatabase(), true), 0L, reconcileInterval);
+    }
+
+    public Leaderboard getLeaderboard(Game game, Stat stat) {
+        return leaderboards.get(game).get(stat);
+    }
+
+    public ImmutableList<LeaderboardEntry> getTop(Game game, Stat stat) {
+        return getLeaderboard(game, stat).getTop();
+    }
+
+    public void statChanged(Game game, Stat stat, COfflinePlayer player, Object value) {
+        if (!(value instanceof Number)) return;
+        getLeaderboard(game, stat).update(player.getUniqueIdentifier(), player.getName(), ((Number) value).intValue());
+    }
+
+    private String getField(Game game, Stat stat) {
+        return settingsKey + ".stat_" + game.name() + "_" + stat.name();
+    }
+
+    private class ReconcileTask implements Runnable {
+        private final CMongoDatabase database;
+        private boolean indexed;
+
+        private ReconcileTask(CMongoDatabase database, boolean createIndexes) {
+            this.database = database;
+            this.indexed = !createIndexes;
+        }
+
+        @Override
+        public void run() {
+            DBCollection players = database.getCollection(collection);
+            if (!indexed) createIndexes(players);
+            final Map<Leaderboard, List<LeaderboardEntry>> results = new HashMap<>();
+            for (Map<Stat, Leaderboard> boards : leaderboards.values()) {
+                for (Leaderboard leaderboard : boards.values()) {
+                    String field = getField(leaderboard.getGame(), leaderboard.getStat());
+                    List<LeaderboardEntry> entries = new ArrayList<>();
+                    try {
+                        for (DBObject object : players.find(new BasicDBObject(field, new BasicDBObject("$exists", true)), new BasicDBObject(field, 1).append(uuidKey, 1).append(nameKey, 1))
+                                .sort(new BasicDBObject(field, -1)).limit(size)) {
+                            LeaderboardEntry entry = entryFrom(object, field);
+                            if (entry != null) entries.add(entry);
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        continue;
+                    }
+                    results.put(leaderboard, entries);
+                }
+            }
+            Bukkit.getScheduler().runTask(TBNRNetwork.getInstance(), new Runnable() {
+                @Override
+                public void run() {
+                    for (Map.Entry<Leaderboard, List<LeaderboardEntry>> result : results.entrySet()) {
+                        result.getKey().replace(result.getValue());
+                    }
+                    //anything still waiting to be flushed is newer than what we just read
+                    for (CPlayer player : Core.getOnlinePlayers()) {
+                        for (Game game : Game.values()) {
+                            for (Stat stat : Stat.values()) {
+                                statChanged(game, stat, player, StatsManager.getStat(game, stat, player, Integer.class));
+                            }
+                        }
+                    }
+                }
+            });
+        }
+
+        private void createIndexes(DBCollection players) {
+            for (Game game : Game.values()) {
+                for (Stat stat : Stat.values()) {
+                    try {
+                        //sparse, most players have never touched most stats
+                        players.createIndex(new BasicDBObject(getField(game, stat), -1), new BasicDBObject("background", true).append("sparse", true));
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        return;
+                    }
+                }
+            }
+            indexed = true;
+        }
+
+        private LeaderboardEntry entryFrom(DBObject object, String field) {
+            Object uuid = object.get(uuidKey);
+            Object value = object.get(settingsKey) instanceof DBObject ? ((DBObject) object.get(settingsKey)).get(field.substring(settingsKey.length() + 1)) : null;
+            if (uuid == null || !(value instanceof Number)) return null;
+            try {
+                return new LeaderboardEntry(UUID.fromString(uuid.toString()), String.valueOf(object.get(nameKey)), ((Number) value).intValue());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -10,12 +10,19 @@ import net.cogzmc.core.player.CPlayerJoinException;
 import net.cogzmc.core.player.mongo.CMongoDatabase;
 import net.tbnr.dev.sg.command.SGAdminCommand;
 import net.tbnr.dev.sg.game.GameManager;
+import net.tbnr.dev.sg.game.loots.Tier;
+import net.tbnr.dev.sg.game.util.GameClock;
 import net.tbnr.dev.sg.game.map.SGMongoMapManager;
 import net.tbnr.dev.sg.setup.SGSetupManager;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.InetAddress;
 
 @ModuleMeta(name = "SurvivalGames", description = "TBNR's SurvivalGames plugin.")
@@ -25,6 +32,9 @@ public final class SurvivalGames extends ModularPlugin {
     @Getter private SGSetupManager setupManager;
     @Getter private GameManager gameManager;
     @Getter private boolean setupOnlyMode = false;
+    @Getter private Tier tier1;
+    @Getter private Tier tier2;
+    @Getter private GameClock gameClock;
 
     @Override
     protected void onModuleEnable() throws Exception {
@@ -37,6 +47,10 @@ public final class SurvivalGames extends ModularPlugin {
             setupOnlyMode = true;
         }
         if (new File(getDataFolder(), "SETUP_LOCK").exists()) setupOnlyMode = true;
+        tier1 = new Tier(readResource("tier1.json"));
+        tier2 = new Tier(readResource("tier2.json"));
+        gameClock = new GameClock();
+        gameClock.start();
         this.setupManager = new SGSetupManager();
         registerCommand(new SGAdminCommand());
         registerListener(new WorldListener());
@@ -45,6 +59,17 @@ public final class SurvivalGames extends ModularPlugin {
         if (Bukkit.getWorld("world") != null) Bukkit.unloadWorld("world", false);
     }
 
+    private JSONObject readResource(String s) throws IOException {
+        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(getResource(s)))) {
+            StringBuilder builder = new StringBuilder();
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                builder.append(line);
+            }
+            return (JSONObject) JSONValue.parse(builder.toString());
+        }
+    }
+
     private static class SetupModeListener implements CPlayerConnectionListener {
         @Override
         public void onPlayerLogin(CPlayer player, InetAddress address) throws CPlayerJoinException {
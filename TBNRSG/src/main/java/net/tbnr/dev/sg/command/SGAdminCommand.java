@@ -3,12 +3,14 @@ package net.tbnr.dev.sg.command;
 import net.cogzmc.core.modular.command.CommandPermission;
 import net.cogzmc.core.modular.command.ModuleCommand;
 import net.tbnr.dev.sg.game.ForceDMCommand;
+import net.tbnr.dev.sg.game.GameClockCommand;
 import net.tbnr.dev.sg.game.GameStartCommand;
+import net.tbnr.dev.sg.game.VisibilityStatsCommand;
 
 @CommandPermission("survivalgames.admin")
 public final class SGAdminCommand extends ModuleCommand {
     public SGAdminCommand() {
-        super("admin", new MapListCommand(), new GameStartCommand(), new ForceDMCommand());
+        super("admin", new MapListCommand(), new GameStartCommand(), new ForceDMCommand(), new VisibilityStatsCommand(), new GameClockCommand());
     }
 
     @Override
@@ -0,0 +1,11 @@
+package net.tbnr.dev.sg.game;
+
+/**
+ * Who in a game a message or sound goes to. Players who have died and not yet respawned only count towards
+ * {@link #ALL}.
+ */
+enum Audience {
+    ALL,
+    TRIBUTES,
+    SPECTATORS
+}
@@ -0,0 +1,255 @@
+package net.tbnr.dev.sg.game;
+
+import net.cogzmc.core.util.Point;
+import net.tbnr.dev.sg.SurvivalGames;
+import net.tbnr.dev.sg.game.journal.GameJournal;
+import net.tbnr.dev.sg.game.loots.Tier;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Chest;
+import org.bukkit.block.DoubleChest;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+
+/**
+ * Places and fills the chests of a game a few at a time during the pre-game countdown, instead of all at once when the
+ * games begin. Loot is rolled off the main thread as soon as the countdown starts, and chests far away from the
+ * cornicopia can be left empty until somebody first opens them.
+ *
+ * Chests that get opened are remembered, and each refill round refills only those.
+ */
+final class ChestFiller implements Runnable, Listener {
+    private final static Integer CHEST_SIZE = 27;
+
+    private final World world;
+    private final GameJournal journal;
+    private final Random random;
+    private final Integer chestsPerTick;
+    private final Double lazyDistanceSquared;
+    private final List<PreparedChest> chests = new ArrayList<>();
+    private final Deque<PreparedChest> toPlace = new ArrayDeque<>();
+    private final Deque<PreparedChest> toFill = new ArrayDeque<>();
+    private final Map<Long, PreparedChest> lazyChests = new HashMap<>();
+    private final Map<Long, PreparedChest> chestsByKey = new HashMap<>();
+    private final Set<Long> openedChests = new HashSet<>();
+    private final Set<Integer> refillSeconds = new HashSet<>();
+    private final Double centerX, centerZ;
+    private BukkitTask task;
+    private Integer refillRound = 0;
+
+    ChestFiller(World world, Set<Point> cornicopiaSpawnPoints, GameJournal journal, Random random) {
+        this.world = world;
+        this.journal = journal;
+        this.random = random;
+        SurvivalGames plugin = SurvivalGames.getInstance();
+        this.chestsPerTick = Math.max(1, plugin.getConfig().getInt("chests.per-tick", 4));
+        double lazyDistance = plugin.getConfig().getDouble("chests.lazy-distance", 0);
+        this.lazyDistanceSquared = lazyDistance > 0 ? lazyDistance * lazyDistance : null;
+        double x = 0, z = 0;
+        for (Point point : cornicopiaSpawnPoints) {
+            x += point.getX();
+            z += point.getZ();
+        }
+        int size = Math.max(1, cornicopiaSpawnPoints.size());
+        centerX = x / size;
+        centerZ = z / size;
+        refillSeconds.addAll(plugin.getConfig().getIntegerList("chests.refill-seconds"));
+    }
+
+    void add(Set<Point> points, Tier tier) {
+        for (Point point : points) {
+            Location location = point.getLocation(world);
+            PreparedChest chest = new PreparedChest(getKey(location.getBlockX(), location.getBlockY(), location.getBlockZ()), location, tier);
+            if (lazyDistanceSquared != null) {
+                double dX = location.getX() - centerX, dZ = location.getZ() - centerZ;
+                chest.lazy = dX * dX + dZ * dZ > lazyDistanceSquared;
+            }
+            chests.add(chest);
+            chestsByKey.put(chest.key, chest);
+        }
+    }
+
+    /**
+     * Starts rolling loot on another thread and placing chests on this one. Call this when the countdown starts.
+     */
+    void start() {
+        SurvivalGames plugin = SurvivalGames.getInstance();
+        toPlace.addAll(chests);
+        final List<PreparedChest> toGenerate = new ArrayList<>(chests);
+        long seed = random.nextLong();
+        //the async roll gets its own stream, the game's random is only used from the main thread
+        final Random rollRandom = new Random(seed);
+        for (PreparedChest chest : chests) chest.seed = seed;
+        journal.chestsFilled(0, seed, chests.size());
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, new Runnable() {
+            @Override
+            public void run() {
+                for (PreparedChest chest : toGenerate) {
+                    chest.contents = chest.tier.generateContents(rollRandom, CHEST_SIZE);
+                }
+            }
+        });
+        plugin.registerListener(this);
+        startTask();
+    }
+
+    private void startTask() {
+        if (task == null) task = Bukkit.getScheduler().runTaskTimer(SurvivalGames.getInstance(), this, 1L, 1L);
+    }
+
+    @Override
+    public void run() {
+        int budget = chestsPerTick;
+        while (budget > 0 && !toPlace.isEmpty()) {
+            PreparedChest chest = toPlace.poll();
+            chest.location.getBlock().setType(Material.CHEST);
+            if (chest.lazy) lazyChests.put(chest.key, chest);
+            else toFill.add(chest);
+            budget--;
+        }
+        //loot is rolled in the order chests are placed, so the first one not rolled yet means none after it are either
+        while (budget > 0 && !toFill.isEmpty() && toFill.peek().contents != null) {
+            fill(toFill.poll());
+            budget--;
+        }
+        if (toPlace.isEmpty() && toFill.isEmpty()) cancelTask();
+    }
+
+    /**
+     * Places and fills everything that is left right now. Call this when the games begin.
+     */
+    void finish() {
+        cancelTask();
+        while (!toPlace.isEmpty()) {
+            PreparedChest chest = toPlace.poll();
+            chest.location.getBlock().setType(Material.CHEST);
+            if (chest.lazy) lazyChests.put(chest.key, chest);
+            else toFill.add(chest);
+        }
+        while (!toFill.isEmpty()) fill(toFill.poll());
+    }
+
+    /**
+     * Called once for every second of gameplay, starts a refill round if one is configured for that second.
+     *
+     * @return The number of chests that will be refilled, or {@code null} if this is not a refill second.
+     */
+    Integer gameplaySecond(Integer secondsPassed) {
+        if (!refillSeconds.contains(secondsPassed)) return null;
+        return refillOpenedChests();
+    }
+
+    private Integer refillOpenedChests() {
+        int refilled = 0;
+        long seed = random.nextLong();
+        Random refillRandom = new Random(seed);
+        for (Long key : openedChests) {
+            PreparedChest chest = chestsByKey.get(key);
+            //rolling is cheap, it's the block state lookups that are spread across ticks
+            chest.contents = chest.tier.generateContents(refillRandom, CHEST_SIZE);
+            chest.seed = seed;
+            if (!toFill.contains(chest)) toFill.add(chest);
+            refilled++;
+        }
+        openedChests.clear();
+        journal.chestsFilled(++refillRound, seed, refilled);
+        if (!toFill.isEmpty()) startTask();
+        return refilled;
+    }
+
+    /**
+     * Stops placing, filling and watching chests. Call this when the game is over.
+     */
+    void stop() {
+        cancelTask();
+        HandlerList.unregisterAll(this);
+    }
+
+    private void cancelTask() {
+        if (task != null) task.cancel();
+        task = null;
+    }
+
+    private void fill(PreparedChest prepared) {
+        BlockState state = prepared.location.getBlock().getState();
+        if (!(state instanceof Chest)) return;
+        fill(prepared, ((Chest) state).getInventory());
+    }
+
+    private void fill(PreparedChest prepared, Inventory inventory) {
+        ItemStack[] contents = prepared.contents;
+        //double chests, and anything the async roll has not reached yet, are rolled here instead. When that happens
+        //depends on the players, so the roll comes from the round's seed and the chest rather than the game's random
+        if (contents == null || contents.length != inventory.getSize()) contents = prepared.tier.generateContents(new Random(prepared.seed * 31 + prepared.key), inventory.getSize());
+        inventory.setContents(contents);
+    }
+
+    @EventHandler
+    public void onInventoryOpen(InventoryOpenEvent event) {
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (holder instanceof DoubleChest) {
+            markOpened(((DoubleChest) holder).getLeftSide());
+            markOpened(((DoubleChest) holder).getRightSide());
+        } else markOpened(holder);
+        if (lazyChests.isEmpty()) return;
+        if (holder instanceof DoubleChest) {
+            //both halves share one inventory, fill it from whichever half was lazy
+            PreparedChest left = removeLazy(((DoubleChest) holder).getLeftSide());
+            PreparedChest right = removeLazy(((DoubleChest) holder).getRightSide());
+            PreparedChest prepared = left != null ? left : right;
+            if (prepared != null) fill(prepared, event.getInventory());
+        } else {
+            PreparedChest prepared = removeLazy(holder);
+            if (prepared != null) fill(prepared, event.getInventory());
+        }
+    }
+
+    private void markOpened(InventoryHolder holder) {
+        Long key = getKey(holder);
+        if (key != null && chestsByKey.containsKey(key)) openedChests.add(key);
+    }
+
+    private PreparedChest removeLazy(InventoryHolder holder) {
+        Long key = getKey(holder);
+        return key == null ? null : lazyChests.remove(key);
+    }
+
+    private Long getKey(InventoryHolder holder) {
+        if (!(holder instanceof Chest)) return null;
+        Block block = ((Chest) holder).getBlock();
+        if (!block.getWorld().equals(world)) return null;
+        return getKey(block.getX(), block.getY(), block.getZ());
+    }
+
+    static Long getKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    private static final class PreparedChest {
+        private final Long key;
+        private final Location location;
+        private final Tier tier;
+        private boolean lazy = false;
+        private volatile ItemStack[] contents;
+        /* the journaled seed of the round the contents were rolled in */
+        private long seed;
+
+        private PreparedChest(Long key, Location location, Tier tier) {
+            this.key = key;
+            this.location = location;
+            this.tier = tier;
+        }
+    }
+}
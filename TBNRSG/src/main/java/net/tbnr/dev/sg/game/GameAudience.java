@@ -0,0 +1,62 @@
+package net.tbnr.dev.sg.game;
+
+import net.cogzmc.core.player.CPlayer;
+import org.bukkit.Sound;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Keeps the members of each {@link Audience} of a game as an array, rebuilt only after somebody joins, leaves or changes
+ * role, so sending something to an audience is a single loop over an array.
+ */
+final class GameAudience {
+    private final Set<CPlayer> tributes;
+    private final Set<CPlayer> spectators;
+    private final Set<WeakReference<CPlayer>> limbo;
+    private final Map<Audience, CPlayer[]> members = new EnumMap<>(Audience.class);
+
+    GameAudience(Set<CPlayer> tributes, Set<CPlayer> spectators, Set<WeakReference<CPlayer>> limbo) {
+        this.tributes = tributes;
+        this.spectators = spectators;
+        this.limbo = limbo;
+    }
+
+    /**
+     * Must be called whenever the tributes, spectators or limbo of the game change.
+     */
+    void invalidate() {
+        members.clear();
+    }
+
+    CPlayer[] get(Audience audience) {
+        CPlayer[] players = members.get(audience);
+        if (players != null) return players;
+        List<CPlayer> list = new ArrayList<>();
+        if (audience != Audience.SPECTATORS) list.addAll(tributes);
+        if (audience != Audience.TRIBUTES) list.addAll(spectators);
+        if (audience == Audience.ALL) {
+            for (WeakReference<CPlayer> reference : limbo) {
+                CPlayer player = reference.get();
+                if (player != null) list.add(player);
+            }
+        }
+        players = list.toArray(new CPlayer[list.size()]);
+        members.put(audience, players);
+        return players;
+    }
+
+    /**
+     * Sends a message and plays a sound for everyone in the audience in one pass, either can be {@code null}.
+     */
+    void send(Audience audience, String message, Sound sound, Float pitch) {
+        for (CPlayer player : get(audience)) {
+            deliver(player, message, sound, pitch);
+        }
+    }
+
+    private static void deliver(CPlayer player, String message, Sound sound, Float pitch) {
+        if (message != null) player.sendMessage(message);
+        if (sound != null) player.playSoundForPlayer(sound, 50f, pitch);
+    }
+}
@@ -0,0 +1,43 @@
+package net.tbnr.dev.sg.game;
+
+import net.cogzmc.core.modular.command.CommandException;
+import net.cogzmc.core.modular.command.ModuleCommand;
+import net.tbnr.dev.sg.SurvivalGames;
+import net.tbnr.dev.sg.game.util.GameClock;
+import org.bukkit.command.CommandSender;
+
+public final class GameClockCommand extends ModuleCommand {
+    public GameClockCommand() {
+        super("clock");
+    }
+
+    @Override
+    protected void handleCommandUnspecific(CommandSender sender, String[] args) throws CommandException {
+        if (args.length == 0) throw new CommandException("Usage: /admin clock <pause|resume|skip <seconds>>");
+        GameClock clock = SurvivalGames.getInstance().getGameClock();
+        switch (args[0].toLowerCase()) {
+            case "pause":
+                clock.pause();
+                sender.sendMessage(SurvivalGames.getInstance().getFormat("clock-paused"));
+                break;
+            case "resume":
+                clock.resume();
+                sender.sendMessage(SurvivalGames.getInstance().getFormat("clock-resumed"));
+                break;
+            case "skip":
+                if (args.length < 2) throw new CommandException("You must specify how many seconds to skip!");
+                Integer seconds;
+                try {
+                    seconds = Integer.valueOf(args[1]);
+                } catch (NumberFormatException e) {
+                    throw new CommandException("That is not a number!");
+                }
+                if (seconds <= 0) throw new CommandException("You can only skip forwards!");
+                clock.fastForward(seconds * 1000L);
+                sender.sendMessage(SurvivalGames.getInstance().getFormat("clock-skipped", new String[]{"<seconds>", String.valueOf(seconds)}));
+                break;
+            default:
+                throw new CommandException("Usage: /admin clock <pause|resume|skip <seconds>>");
+        }
+    }
+}
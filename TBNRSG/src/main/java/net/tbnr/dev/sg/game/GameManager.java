@@ -9,7 +9,6 @@ import net.cogzmc.core.player.CPlayer;
 import net.cogzmc.core.player.CPlayerConnectionListener;
 import net.cogzmc.core.player.CPlayerJoinException;
 import net.cogzmc.core.util.Point;
-import net.cogzmc.util.RandomUtils;
 import net.tbnr.dev.JoinAttempt;
 import net.tbnr.dev.JoinAttemptResponse;
 import net.tbnr.dev.ServerHelper;
@@ -17,6 +16,7 @@ import net.tbnr.dev.sg.SurvivalGames;
 import net.tbnr.dev.sg.command.VoteCommand;
 import net.tbnr.dev.sg.game.deathperks.DeathPerkManager;
 import net.tbnr.dev.sg.game.map.SGMap;
+import net.tbnr.dev.sg.game.util.AnnouncementSchedule;
 import net.tbnr.dev.sg.game.util.Timer;
 import net.tbnr.dev.sg.game.util.TimerDelegate;
 import org.bukkit.Bukkit;
@@ -33,6 +33,7 @@ import org.bukkit.event.player.PlayerQuitEvent;
 import java.net.InetAddress;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 public final class GameManager implements Listener, CPlayerConnectionListener, NetCommandHandler<JoinAttempt> {
@@ -42,27 +43,32 @@ public final class GameManager implements Listener, CPlayerConnectionListener, N
 
     @Getter private SGGame runningGame = null;
     @Getter public PreGameLobby preGameLobby;
-    private final PreGameListener listener;
+    private final PreGameListener listener = new PreGameListener();
     private Iterator<Point> spawnPoints;
-    @Getter private final VotingSession votingSession;
+    @Getter private VotingSession votingSession;
     private Timer gameTimer;
     private Integer maxPlayers;
+    private final AnnouncementSchedule lobbyAnnouncements = new AnnouncementSchedule(AnnouncementSchedule.format("lobby-message", "<seconds>"), 60, 30, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1);
     @Getter private final DeathPerkManager deathPerkManager = new DeathPerkManager(this);
     @Getter private final PreGameInventoryController preGameInventoryController = new PreGameInventoryController();
+    private final MapPrewarmer mapPrewarmer = new MapPrewarmer();
+    /* every random choice made for the game comes from this, so a game can be reproduced from its seed */
+    @Getter private Long seed;
+    @Getter private Random random;
+    /* in continuous mode the server goes back to the lobby after a game instead of shutting down */
+    private final boolean continuous;
+    private final Integer maxGames;
+    private Integer gamesPlayed = 0;
 
     public GameManager() {
         SurvivalGames.getInstance().registerListener(this);
         Core.getPlayerManager().registerCPlayerConnectionListener(this);
         preGameLobby = SurvivalGames.getInstance().getMapManager().getPreGameLobby();
-        preGameLobby.getMap().load("PRE_GAME");
-        World world = preGameLobby.getMap().getWorld();
-        world.setTime(0);
-        world.setStorm(false);
-        world.setGameRuleValue("doDaylightCycle", "false");
-        listener = SurvivalGames.getInstance().registerListener(new PreGameListener());
-        spawnPoints = preGameLobby.getSpawnPoints().iterator();
-        votingSession = new VotingSession(SurvivalGames.getInstance().getMapManager().getRandomMaps(5));
+        openLobby();
+        newVotingSession(SurvivalGames.getInstance().getConfig().contains("game-seed") ? SurvivalGames.getInstance().getConfig().getLong("game-seed") : Core.getRandom().nextLong());
         SurvivalGames.getInstance().registerCommand(new VoteCommand());
+        continuous = SurvivalGames.getInstance().getConfig().getBoolean("continuous.enabled", false);
+        maxGames = SurvivalGames.getInstance().getConfig().getInt("continuous.max-games", 0);
         startTimer();
         Bukkit.getScheduler().runTaskLater(SurvivalGames.getInstance(), new Runnable() {
             @Override
@@ -71,10 +77,30 @@ public final class GameManager implements Listener, CPlayerConnectionListener, N
             }
         }, 40L);
         maxPlayers = SurvivalGames.getInstance().getConfig().getInt("max-players");
-        if (Core.getNetworkManager() != null) Core.getNetworkManager().registerNetCommandHandler(this, JoinAttempt.class);
+        if (Core.getNetworkManager() != null) {
+            Core.getNetworkManager().registerNetCommandHandler(this, JoinAttempt.class);
+            ServerHelper.setMaxPlayers(maxPlayers);
+        }
         SurvivalGames.getInstance().registerListener(preGameInventoryController);
     }
 
+    private void openLobby() {
+        preGameLobby.getMap().load("PRE_GAME");
+        World world = preGameLobby.getMap().getWorld();
+        world.setTime(0);
+        world.setStorm(false);
+        world.setGameRuleValue("doDaylightCycle", "false");
+        SurvivalGames.getInstance().registerListener(listener);
+        spawnPoints = preGameLobby.getSpawnPoints().iterator();
+    }
+
+    private void newVotingSession(Long seed) {
+        this.seed = seed;
+        random = new Random(seed);
+        SurvivalGames.getInstance().logMessage("Using game seed " + seed);
+        votingSession = new VotingSession(SurvivalGames.getInstance().getMapManager().getRandomMaps(5, random));
+    }
+
     private void startTimer() {
         gameTimer = new Timer(120, new GameStartTimer()).start();
     }
@@ -137,10 +163,14 @@ public final class GameManager implements Listener, CPlayerConnectionListener, N
     private void startGame(SGMap arena) {
         if (runningGame != null) throw new IllegalStateException("There is a game already running!");
         HandlerList.unregisterAll(listener);
-        arena.getMap().load("SG_MAP_" + Core.getRandom().nextInt(100));
-        runningGame = new SGGame(this, Core.getOnlinePlayers(), arena);
+        World world = mapPrewarmer.take(arena);
+        if (world == null) {
+            arena.getMap().load(mapPrewarmer.nextWorldName());
+            world = arena.getMap().getWorld();
+        }
+        runningGame = new SGGame(this, Core.getOnlinePlayers(), arena, world);
         runningGame.startGame();
-        if (Core.getNetworkManager() != null) ServerHelper.setStatus(IN_GAME_STATUS);
+        if (Core.getNetworkManager() != null) ServerHelper.setStatus(IN_GAME_STATUS, arena.getName(), System.currentTimeMillis());
         Bukkit.getScheduler().runTaskLater(SurvivalGames.getInstance(), new Runnable() {
             @Override
             public void run() {
@@ -151,6 +181,16 @@ public final class GameManager implements Listener, CPlayerConnectionListener, N
 
     void gameEnded() {
         if (Core.getNetworkManager() != null) ServerHelper.setStatus(GAME_OVER_STATUS);
+        gamesPlayed++;
+        if (continuous && (maxGames <= 0 || gamesPlayed < maxGames)) {
+            Bukkit.getScheduler().runTaskLater(SurvivalGames.getInstance(), new Runnable() {
+                @Override
+                public void run() {
+                    resetForNextGame();
+                }
+            }, 200L);
+            return;
+        }
         Bukkit.getScheduler().runTaskLater(SurvivalGames.getInstance(), new Runnable() {
             @Override
             public void run() {
@@ -174,6 +214,45 @@ public final class GameManager implements Listener, CPlayerConnectionListener, N
         }, 220L);
     }
 
+    /**
+     * Brings everyone back to the lobby and starts voting for the next game, without restarting the server. The world
+     * the game was played on is thrown away, and the next game gets a fresh copy of its map.
+     */
+    private void resetForNextGame() {
+        final SGGame game = runningGame;
+        game.cleanUp();
+        runningGame = null;
+        openLobby();
+        //the next game's seed comes from this one's, so a fixed game-seed still reproduces every game in a run
+        newVotingSession(random.nextLong());
+        deathPerkManager.reset();
+        deathPerkManager.setLocked(false);
+        SurvivalGames.getInstance().registerListener(preGameInventoryController);
+        World world = preGameLobby.getMap().getWorld();
+        for (CPlayer player : Core.getOnlinePlayers()) {
+            Player bukkitPlayer = player.getBukkitPlayer();
+            bukkitPlayer.teleport(getNextSpawnPoint().getLocation(world));
+            player.resetPlayer();
+            bukkitPlayer.setFlying(false);
+            bukkitPlayer.setAllowFlight(false);
+            player.clearChatAll();
+            preGameInventoryController.setActive(player);
+        }
+        //no map until the next one is voted for, and the countdown sets when the game starts
+        if (Core.getNetworkManager() != null) ServerHelper.setStatus(PRE_GAME_STATUS, null, null);
+        startTimer();
+        for (CPlayer player : Core.getOnlinePlayers()) {
+            sendMapBlock(player);
+        }
+        //unloaded a tick later, once nobody is in it any more
+        Bukkit.getScheduler().runTaskLater(SurvivalGames.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                mapPrewarmer.release(game.getMap(), game.getWorld());
+            }
+        }, 1L);
+    }
+
     @Override
     public void onPlayerLogin(final CPlayer player, InetAddress address) throws CPlayerJoinException {
         if (Core.getOnlinePlayers().size() > maxPlayers){
@@ -253,10 +332,9 @@ public final class GameManager implements Listener, CPlayerConnectionListener, N
     }
 
     private class GameStartTimer implements TimerDelegate {
-        private final Integer[] broadcastSeconds = new Integer[]{60, 30, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
-
         @Override
         public void countdownStarted(Timer timer, Integer totalSeconds) {
+            if (Core.getNetworkManager() != null) ServerHelper.setGameStart(System.currentTimeMillis() + totalSeconds * 1000L);
             handleDisplay(totalSeconds);
         }
 
@@ -277,13 +355,14 @@ public final class GameManager implements Listener, CPlayerConnectionListener, N
         @Override
         public void countdownChanged(Timer timer, Integer secondsPassed, Integer totalSeconds) {
             handleDisplay(totalSeconds-secondsPassed);
+            mapPrewarmer.lobbySecond(totalSeconds-secondsPassed, votingSession.getMostVotedFor());
         }
 
         private void handleDisplay(Integer second) {
-            if (RandomUtils.contains(broadcastSeconds, second)) {
-                String format = SurvivalGames.getInstance().getFormat("lobby-message", new String[]{"<seconds>", String.valueOf(second)});
+            String message = lobbyAnnouncements.getMessage(second);
+            if (message != null) {
                 for (CPlayer cPlayer : Core.getOnlinePlayers()) {
-                    cPlayer.sendMessage(format);
+                    cPlayer.sendMessage(message);
                     cPlayer.playSoundForPlayer(Sound.ORB_PICKUP);
                 }
             }
@@ -0,0 +1,330 @@
+package net.tbnr.dev.sg.game;
+
+import net.cogzmc.core.Core;
+import net.cogzmc.core.util.Point;
+import net.tbnr.dev.sg.SurvivalGames;
+import net.tbnr.dev.sg.game.map.SGMap;
+import net.tbnr.dev.sg.game.util.WorldFolders;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Gets the world of the map leading the vote ready while the lobby countdown is still running, so starting the game
+ * only has to switch worlds.
+ *
+ * Every map is kept as a template folder on disk, made from a copy the map manager loaded and stamped with the version
+ * of the map it was made from, so a map that is saved again gets a new template. Templates are made one at a time and
+ * only for the map that is winning the vote. Warming a map copies its template into a new world folder on another
+ * thread, and only creating the world from those files happens on the main thread. The chunks around the cornicopia
+ * and the chests are then loaded a few at a time and kept loaded until the game starts.
+ */
+final class MapPrewarmer implements Runnable, Listener {
+    private final static String WORLD_PREFIX = "SG_MAP_";
+
+    private final Integer secondsBeforeStart;
+    private final Integer chunksPerTick;
+    private final Integer spawnRadius;
+    private final File templates;
+    /* the version of the template on disk for each map, read from disk the first time it is needed */
+    private final Map<UUID, String> templateVersions = new HashMap<>();
+    /* maps whose template could not be made, they are loaded the old way for the rest of this run */
+    private final Set<UUID> failedTemplates = new HashSet<>();
+    /* worlds we created from templates, and so have to delete ourselves */
+    private final Set<String> templateWorlds = new HashSet<>();
+    private final Set<Long> pinnedChunks = new HashSet<>();
+    private final Deque<Long> toLoad = new ArrayDeque<>();
+    private Integer worldCounter = 0;
+    /* the map a template is being made of, and whether its world was taken for a game in the meantime */
+    private SGMap preparing;
+    private boolean preparingTaken = false;
+    /* the map being warmed, and its world once it has been created */
+    private SGMap warmMap;
+    private World warmWorld;
+    private BukkitTask task;
+    private boolean listening = false;
+
+    MapPrewarmer() {
+        SurvivalGames plugin = SurvivalGames.getInstance();
+        this.secondsBeforeStart = plugin.getConfig().getInt("prewarm.seconds-before-start", 30);
+        this.chunksPerTick = Math.max(1, plugin.getConfig().getInt("prewarm.chunks-per-tick", 4));
+        this.spawnRadius = plugin.getConfig().getInt("prewarm.spawn-radius", 3);
+        this.templates = new File(plugin.getDataFolder(), "map-templates");
+    }
+
+    /**
+     * @return A world name that is neither loaded nor left over on disk.
+     */
+    String nextWorldName() {
+        String name;
+        do {
+            name = WORLD_PREFIX + worldCounter++;
+        } while (Bukkit.getWorld(name) != null || new File(Bukkit.getWorldContainer(), name).exists());
+        return name;
+    }
+
+    /**
+     * Called for every second of the lobby countdown.
+     */
+    void lobbySecond(Integer secondsLeft, SGMap leader) {
+        if (leader == null) return;
+        if (!hasTemplate(leader)) {
+            //the map manager loads the world on the main thread, so never more than one at a time
+            if (preparing == null && !failedTemplates.contains(leader.getMap().getMapId()) && !leader.getMap().isLoaded()) prepareTemplate(leader);
+            return;
+        }
+        if (secondsLeft > secondsBeforeStart || warmWorld != null || leader.equals(warmMap)) return;
+        //a countdown that is going to fail for a lack of players is not worth a world
+        if (Core.getOnlinePlayers().size() < SurvivalGames.getInstance().getConfig().getInt("min-players", 12)) return;
+        warm(leader);
+    }
+
+    /**
+     * Makes a template of the map, replacing any made from an older version. That takes one load through the map
+     * manager, the copy itself happens on another thread.
+     */
+    private void prepareTemplate(final SGMap map) {
+        final SurvivalGames plugin = SurvivalGames.getInstance();
+        final UUID mapId = map.getMap().getMapId();
+        final String version = plugin.getMapManager().getVersion(map);
+        if (version == null) {
+            failedTemplates.add(mapId);
+            return;
+        }
+        preparing = map;
+        preparingTaken = false;
+        templateVersions.remove(mapId);
+        final String name = nextWorldName();
+        map.getMap().load(name);
+        final World world = map.getMap().getWorld();
+        world.setAutoSave(false);
+        final File from = world.getWorldFolder();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, new Runnable() {
+            @Override
+            public void run() {
+                File temporary = new File(templates, mapId + ".tmp");
+                File template = getTemplate(mapId);
+                File versionFile = getVersionFile(mapId);
+                boolean made = false;
+                try {
+                    WorldFolders.delete(temporary);
+                    WorldFolders.copy(from, temporary);
+                    //the version is removed first and written last, so a template is never taken for a version it is not
+                    Files.deleteIfExists(versionFile.toPath());
+                    WorldFolders.delete(template);
+                    if (!temporary.renameTo(template)) throw new IOException("Unable to move " + temporary + " into place");
+                    Files.write(versionFile.toPath(), version.getBytes(StandardCharsets.UTF_8));
+                    made = true;
+                } catch (IOException e) {
+                    plugin.logMessage(ChatColor.RED + "Unable to make a template of " + map.getName() + "!");
+                    e.printStackTrace();
+                }
+                final boolean madeTemplate = made;
+                Bukkit.getScheduler().runTask(plugin, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (madeTemplate) templateVersions.put(mapId, version);
+                        else failedTemplates.add(mapId);
+                        preparing = null;
+                        if (preparingTaken) return;
+                        if (map.getMap().isLoaded() && map.getMap().getWorld().getName().equals(name)) map.getMap().unload();
+                    }
+                });
+            }
+        });
+    }
+
+    private boolean hasTemplate(SGMap map) {
+        UUID mapId = map.getMap().getMapId();
+        if (map.equals(preparing)) return false;
+        if (!templateVersions.containsKey(mapId)) templateVersions.put(mapId, readVersion(mapId));
+        String version = SurvivalGames.getInstance().getMapManager().getVersion(map);
+        return version != null && version.equals(templateVersions.get(mapId));
+    }
+
+    private String readVersion(UUID mapId) {
+        File versionFile = getVersionFile(mapId);
+        if (!versionFile.isFile() || !getTemplate(mapId).isDirectory()) return null;
+        try {
+            return new String(Files.readAllBytes(versionFile.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private File getTemplate(UUID mapId) {
+        return new File(templates, mapId.toString());
+    }
+
+    private File getVersionFile(UUID mapId) {
+        return new File(templates, mapId + ".version");
+    }
+
+    /**
+     * Copies the template of the map on another thread, then creates its world. If the leader changes while the files
+     * are being copied the copy is thrown away, once the world exists it is kept until the game starts.
+     */
+    private void warm(final SGMap map) {
+        final SurvivalGames plugin = SurvivalGames.getInstance();
+        warmMap = map;
+        final String name = nextWorldName();
+        final File template = getTemplate(map.getMap().getMapId());
+        final File folder = new File(Bukkit.getWorldContainer(), name);
+        final long started = System.currentTimeMillis();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, new Runnable() {
+            @Override
+            public void run() {
+                final boolean copied = copy(template, folder);
+                Bukkit.getScheduler().runTask(plugin, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!copied || !map.equals(warmMap)) {
+                            if (map.equals(warmMap)) warmMap = null;
+                            deleteLater(folder);
+                            return;
+                        }
+                        long copiedAt = System.currentTimeMillis();
+                        warmWorld = new WorldCreator(name).createWorld();
+                        warmWorld.setAutoSave(false);
+                        templateWorlds.add(name);
+                        plugin.logMessage("Pre-warmed " + map.getName() + ", copied in " + (copiedAt - started) + "ms and created in " + (System.currentTimeMillis() - copiedAt) + "ms");
+                        pinChunks(map);
+                    }
+                });
+            }
+        });
+    }
+
+    private static boolean copy(File template, File folder) {
+        try {
+            WorldFolders.copy(template, folder);
+            return true;
+        } catch (IOException e) {
+            SurvivalGames.getInstance().logMessage(ChatColor.RED + "Unable to copy the template " + template + "!");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void pinChunks(SGMap map) {
+        //closest to the cornicopia first, that is where everyone starts
+        for (Point point : map.getCornicopiaSpawnPoints()) {
+            int chunkX = chunk(point.getX()), chunkZ = chunk(point.getZ());
+            for (int x = -spawnRadius; x <= spawnRadius; x++) {
+                for (int z = -spawnRadius; z <= spawnRadius; z++) {
+                    pinnedChunks.add(getKey(chunkX + x, chunkZ + z));
+                }
+            }
+        }
+        addChunks(map.getCornicopiaChests());
+        addChunks(map.getTier1chests());
+        addChunks(map.getTier2chests());
+        addChunks(map.getDeathmatchSpawn());
+        toLoad.addAll(pinnedChunks);
+        if (!listening) {
+            SurvivalGames.getInstance().registerListener(this);
+            listening = true;
+        }
+        if (task == null) task = Bukkit.getScheduler().runTaskTimer(SurvivalGames.getInstance(), this, 1L, 1L);
+    }
+
+    private void addChunks(Set<Point> points) {
+        for (Point point : points) {
+            pinnedChunks.add(getKey(chunk(point.getX()), chunk(point.getZ())));
+        }
+    }
+
+    @Override
+    public void run() {
+        int budget = chunksPerTick;
+        while (budget > 0 && !toLoad.isEmpty()) {
+            Long chunk = toLoad.poll();
+            warmWorld.loadChunk((int) (chunk >> 32), (int) (long) chunk);
+            budget--;
+        }
+        if (toLoad.isEmpty()) cancelTask();
+    }
+
+    /**
+     * Hands over the world of the map that is about to be played, and lets go of the world if it was warmed for a map
+     * that lost the vote.
+     *
+     * @return The world of the map, or {@code null} if it was not warmed in time and still has to be loaded.
+     */
+    World take(SGMap map) {
+        cancelTask();
+        toLoad.clear();
+        pinnedChunks.clear();
+        if (listening) HandlerList.unregisterAll(this);
+        listening = false;
+        World world = map.equals(warmMap) ? warmWorld : null;
+        if (warmWorld != null && world == null) release(warmMap, warmWorld);
+        //a copy that is still running will see this and throw its files away
+        warmMap = null;
+        warmWorld = null;
+        if (world == null && map.equals(preparing)) {
+            //the map manager already loaded it for the template, so play in that world and leave it loaded
+            preparingTaken = true;
+            world = map.getMap().getWorld();
+        }
+        return world;
+    }
+
+    /**
+     * Unloads the world of a map, however it was loaded, and throws away its files.
+     */
+    void release(SGMap map, World world) {
+        if (!templateWorlds.remove(world.getName())) {
+            map.getMap().unload();
+            return;
+        }
+        File folder = world.getWorldFolder();
+        Bukkit.unloadWorld(world, false);
+        deleteLater(folder);
+    }
+
+    private static void deleteLater(final File folder) {
+        Bukkit.getScheduler().runTaskAsynchronously(SurvivalGames.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    WorldFolders.delete(folder);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    private void cancelTask() {
+        if (task != null) task.cancel();
+        task = null;
+    }
+
+    @EventHandler
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (!event.getWorld().equals(warmWorld)) return;
+        if (pinnedChunks.contains(getKey(event.getChunk().getX(), event.getChunk().getZ()))) event.setCancelled(true);
+    }
+
+    private static int chunk(Double coordinate) {
+        return (int) Math.floor(coordinate) >> 4;
+    }
+
+    private static Long getKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,107 @@
+package net.tbnr.dev.sg.game;
+
+import org.bukkit.entity.Entity;
+
+/**
+ * The roles of every player in a game, keyed by entity id. A player can hold more than one role at once (a tribute who
+ * has used a death perk, for example), so roles are bit flags. This is an open addressed int to byte map so that an event
+ * handler can find out everything it needs about a player with one probe and no boxing.
+ */
+final class RoleTable {
+    static final byte TRIBUTE = 1;
+    static final byte SPECTATOR = 1 << 1;
+    static final byte LIMBO = 1 << 2;
+    static final byte DEATH_PERK = 1 << 3;
+
+    private int[] keys = new int[64];
+    /* zero means the slot is empty, a player with no roles is not stored */
+    private byte[] values = new byte[64];
+    private int mask = 63;
+    private int size = 0;
+
+    byte get(Entity entity) {
+        return get(entity.getEntityId());
+    }
+
+    byte get(int entityId) {
+        int slot = slot(entityId);
+        while (values[slot] != 0) {
+            if (keys[slot] == entityId) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    boolean has(Entity entity, byte role) {
+        return (get(entity.getEntityId()) & role) != 0;
+    }
+
+    void add(Entity entity, byte role) {
+        int entityId = entity.getEntityId();
+        int slot = slot(entityId);
+        while (values[slot] != 0) {
+            if (keys[slot] == entityId) {
+                values[slot] |= role;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = entityId;
+        values[slot] = role;
+        if (++size * 2 > keys.length) grow();
+    }
+
+    void remove(Entity entity, byte role) {
+        int entityId = entity.getEntityId();
+        int slot = slot(entityId);
+        while (values[slot] != 0) {
+            if (keys[slot] == entityId) {
+                values[slot] &= ~role;
+                if (values[slot] == 0) delete(slot);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    void clear(Entity entity) {
+        remove(entity, (byte) -1);
+    }
+
+    private void delete(int slot) {
+        //shift back anything in the same probe run that would no longer be reachable across the gap
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        while (values[i] != 0) {
+            int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        values[gap] = 0;
+        size--;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        byte[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new byte[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == 0) continue;
+            int slot = slot(oldKeys[i]);
+            while (values[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private int slot(int entityId) {
+        int hash = entityId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
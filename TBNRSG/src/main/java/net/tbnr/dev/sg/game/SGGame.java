@@ -15,20 +15,22 @@ import net.cogzmc.core.player.CPlayer;
 import net.cogzmc.core.player.DatabaseConnectException;
 import net.cogzmc.core.util.Point;
 import net.cogzmc.core.util.TimeUtils;
-import net.cogzmc.util.RandomUtils;
 import net.tbnr.dev.*;
 import net.tbnr.dev.sg.SurvivalGames;
 import net.tbnr.dev.sg.game.deathperks.DeathPerk;
+import net.tbnr.dev.sg.game.journal.GameJournal;
 import net.tbnr.dev.sg.game.loots.Tier;
+import net.tbnr.dev.sg.game.map.ArenaBoundary;
 import net.tbnr.dev.sg.game.map.SGMap;
+import net.tbnr.dev.sg.game.util.AnnouncementSchedule;
 import net.tbnr.dev.sg.game.util.Timer;
 import net.tbnr.dev.sg.game.util.TimerDelegate;
 import org.bukkit.*;
-import org.bukkit.block.Chest;
 import org.bukkit.entity.*;
 import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
@@ -42,17 +44,15 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.util.Vector;
 import org.joda.time.Duration;
 import org.joda.time.Instant;
-import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
 import java.util.*;
 
 public final class SGGame implements Listener {
     private final static Integer DEFAULT_POINTS = (Integer) Stat.POINTS.defaultValue;
+    private final static int[] COUNTDOWN_SECONDS = {60, 30, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
+    private final static int[] GAMEPLAY_SECONDS = {1500, 900, 600, 300, 180, 120, 60, 30, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
     private SurvivalGames plugin = SurvivalGames.getInstance();
 
     private final ControlledInventory spectatorInventory = new ControlledInventory() {
@@ -107,14 +107,19 @@ public final class SGGame implements Listener {
     private final Set<CPlayer> tributes = new HashSet<>();
     private final Set<CPlayer> spectators = new HashSet<>();
     private final Set<WeakReference<CPlayer>> limbo = new HashSet<>(); //These players have died, and will soon either respawn or disconnect. Keep an eye on them.
-    private final Set<CPlayer> deathPerkUsers = new HashSet<>();
     private final Set<CPlayer> processedDeaths = new HashSet<>();
+    private final RoleTable roles = new RoleTable();
+    private final GameAudience audience = new GameAudience(tributes, spectators, limbo);
     @Getter private final SGMap map;
     @Getter private final World world;
 
     /* tier stuff */
     private final Tier tier1;
     private final Tier tier2;
+    private final ChestFiller chestFiller;
+    private final GameJournal journal;
+    private final Random random;
+    @Getter private final VisibilityManager visibilityManager = new VisibilityManager();
 
     /* game stuff */
     @Getter private Instant gameStart;
@@ -123,44 +128,30 @@ public final class SGGame implements Listener {
     private Map<CPlayer, Point> cornicopiaPoints = new WeakHashMap<>();
     private Map<CPlayer, Integer> hungerFlags = new WeakHashMap<>();
     private Timer deathmatchCountdown;
-    @Getter(lazy = true) private final Double maxCornDistanceSquared = _getMaxCornDistance();
+    private Timer stateCountdown;
+    /* the hitboxes spectators had before theirs were taken away, so they can be given back once the game is over */
+    private final Map<CPlayer, float[]> spectatorHitboxes = new HashMap<>();
+    private final ArenaBoundary deathmatchBoundary;
     private Map<CPlayer, Long> timesStruckDeathmatch = new WeakHashMap<>();
 
-    private Double _getMaxCornDistance() {
-        Double maxDistanceSquared = 0d;
-        for (Point point : map.getCornicopiaSpawnPoints()) {
-            for (Point point1 : map.getCornicopiaSpawnPoints()) {
-                Double distance;
-                if ((distance = point.distanceSquared(point1)) > maxDistanceSquared) maxDistanceSquared = distance;
-            }
-        }
-        return (Math.ceil(maxDistanceSquared))+Math.pow(5,2);
-    }
-
-    public SGGame(GameManager manager, Iterable<CPlayer> players, SGMap map) {
+    public SGGame(GameManager manager, Iterable<CPlayer> players, SGMap map, World world) {
         this.manager = manager;
         for (CPlayer player : players) {
             tributes.add(player);
+            roles.add(player.getBukkitPlayer(), RoleTable.TRIBUTE);
         }
-        if (!map.getMap().isLoaded()) throw new IllegalStateException("The SGMap you have passed is not loaded into Bukkit!");
+        if (world == null) throw new IllegalStateException("The SGMap you have passed is not loaded into Bukkit!");
         this.map = map;
-        world = map.getMap().getWorld();
-        try {
-            tier1 = new Tier(readResource("tier1.json"));
-            tier2 = new Tier(readResource("tier2.json"));
-        } catch (Exception e) {
-            throw new RuntimeException("Unable to start game", e);
-        }
-    }
-
-    private static JSONObject readResource(String s) throws IOException {
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(SurvivalGames.getInstance().getResource(s)));
-        StringBuilder builder = new StringBuilder();
-        String line;
-        while ((line = bufferedReader.readLine()) != null) {
-            builder.append(line);
-        }
-        return (JSONObject) JSONValue.parse(builder.toString());
+        this.world = world;
+        deathmatchBoundary = ArenaBoundary.around(map.getCornicopiaSpawnPoints(), 5);
+        tier1 = plugin.getTier1();
+        tier2 = plugin.getTier2();
+        random = manager.getRandom();
+        journal = GameJournal.open(map.getName());
+        chestFiller = new ChestFiller(world, map.getCornicopiaSpawnPoints(), journal, random);
+        chestFiller.add(map.getCornicopiaChests(), tier2);
+        chestFiller.add(map.getTier2chests(), tier2);
+        chestFiller.add(map.getTier1chests(), tier1);
     }
 
     public void startGame() {
@@ -175,7 +166,9 @@ public final class SGGame implements Listener {
         gameStart = new Instant();
         //Teleport to cornicopia
         Iterator<CPlayer> cornIterator = tributes.iterator();
-        Iterator<Point> cornPointIterator = map.getCornicopiaSpawnPoints().iterator();
+        List<Point> cornicopiaSpawns = new ArrayList<>(map.getCornicopiaSpawnPoints());
+        Collections.shuffle(cornicopiaSpawns, random);
+        Iterator<Point> cornPointIterator = cornicopiaSpawns.iterator();
         while (cornIterator.hasNext() && cornPointIterator.hasNext()) {
             CPlayer player = cornIterator.next();
             Point point = cornPointIterator.next();
@@ -186,19 +179,17 @@ public final class SGGame implements Listener {
         }
         //Kick the players who couldn't fit on the cornicopia.
         while (cornIterator.hasNext()) {
-            cornIterator.next().kickPlayer(ChatColor.RED + "We couldn't make room for you on this map :(");
+            CPlayer player = cornIterator.next();
+            roles.remove(player.getBukkitPlayer(), RoleTable.TRIBUTE);
+            player.kickPlayer(ChatColor.RED + "We couldn't make room for you on this map :(");
             cornIterator.remove();
         }
-        //setup chests
-        for (Point point : map.getCornicopiaChests()) {
-            point.getLocation(world).getBlock().setType(Material.CHEST);
-        }
-        for (Point point : map.getTier1chests()) {
-            point.getLocation(world).getBlock().setType(Material.CHEST);
-        }
-        for (Point point : map.getTier2chests()) {
-            point.getLocation(world).getBlock().setType(Material.CHEST);
+        audience.invalidate();
+        List<UUID> tributeIds = new ArrayList<>();
+        for (CPlayer tribute : tributes) {
+            tributeIds.add(tribute.getUniqueIdentifier());
         }
+        journal.gameStarted(map.getName(), manager.getSeed(), tributeIds);
         world.setTime(0);
         world.setGameRuleValue("doDaylightCycle", "false");
         world.setStorm(false);
@@ -212,12 +203,14 @@ public final class SGGame implements Listener {
             tribute.resetPlayer();
             tribute.getBukkitPlayer().setGameMode(GameMode.SURVIVAL);
             spectatorGUI.addButton(new TributeButton(tribute));
+            visibilityManager.setTribute(tribute);
         }
 
         spectatorGUI.updateInventory();
 
-        //Start the countdown
-        new Timer(30, new PreGameCountdown()).start();
+        //Start the countdown, chests are placed and filled over the course of it
+        stateCountdown = new Timer(30, new PreGameCountdown()).start();
+        chestFiller.start();
     }
 
     private void creditGameplay(CPlayer player) {
@@ -228,24 +221,27 @@ public final class SGGame implements Listener {
     }
 
     void updateState() {
+        journal.stateChanged(state);
         switch (state) {
             case GAMEPLAY:
                 for (CPlayer cPlayer : Core.getOnlinePlayers()) {
                     cPlayer.clearChatAll();
                 }
-                fillChests();
+                chestFiller.finish();
                 ensureHiddenAndShown();
                 broadcastMessage(plugin.getFormat("game-started"));
                 deathmatchCountdown = new Timer(1500, new GameplayTimeLimiter()).start();
                 break;
             case PRE_DEATHMATCH_1:
                 if (deathmatchCountdown != null && deathmatchCountdown.isRunning()) deathmatchCountdown.cancel();
-                new Timer(60, new PreDeathmatchCountdown(SGGameState.PRE_DEATHMATCH_2)).start();
+                stateCountdown = new Timer(60, new PreDeathmatchCountdown(SGGameState.PRE_DEATHMATCH_2)).start();
                 break;
             case PRE_DEATHMATCH_2:
                 broadcastSound(Sound.LEVEL_UP, 1.5f);
-                new Timer(10, new PreDeathmatchCountdown(SGGameState.DEATHMATCH)).start();
-                Iterator<Point> iterator = map.getDeathmatchSpawn().iterator();
+                stateCountdown = new Timer(10, new PreDeathmatchCountdown(SGGameState.DEATHMATCH)).start();
+                List<Point> deathmatchSpawns = new ArrayList<>(map.getDeathmatchSpawn());
+                Collections.shuffle(deathmatchSpawns, random);
+                Iterator<Point> iterator = deathmatchSpawns.iterator();
                 Iterator<CPlayer> iterator1 = tributes.iterator();
                 while (iterator.hasNext() && iterator1.hasNext()) {
                     Point next = iterator.next();
@@ -255,11 +251,14 @@ public final class SGGame implements Listener {
                     iterator1.next().kickPlayer(ChatColor.RED + "Your game has ended, there is not enough room for you on the cornicopia!");
                 }
                 ensureHiddenAndShown();
+                refreshTributeEntities();
                 break;
             case DEATHMATCH:
                 broadcastMessage(plugin.getFormat("deathmatch-start"));
                 break;
             case POST_GAME:
+                journal.gameEnded(tributes.size() == 1 ? tributes.iterator().next().getUniqueIdentifier() : null);
+                journal.close();
                 if (tributes.size() == 1) {
                     CPlayer victor = tributes.iterator().next();
                     Integer stat = StatsManager.getStat(Game.SURVIVAL_GAMES, Stat.WINS, victor, Integer.class);
@@ -269,6 +268,7 @@ public final class SGGame implements Listener {
                     creditGameplay(victor);
                     broadcastMessage(plugin.getFormat("has-won", new String[]{"<name>", victor.getDisplayName()}));
                 }
+                StatsManager.flush();
                 broadcastSound(Sound.ENDERDRAGON_DEATH, 1.4f);
                 broadcastMessage(plugin.getFormat("game-over", new String[]{"<time>", TimeUtils.formatDurationNicely(new Duration(gameStart, new Instant()))}));
                 manager.gameEnded();
@@ -277,73 +277,47 @@ public final class SGGame implements Listener {
     }
 
     void checkForWin() {
-        if (tributes.size() <= 1 && this.state != SGGameState.POST_GAME) {
-            this.state = SGGameState.POST_GAME;
-            updateState();
-        } else if (tributes.size() <= 4 && this.state == SGGameState.GAMEPLAY) {
-            this.state = SGGameState.PRE_DEATHMATCH_1;
-            updateState();
-        }
-    }
-
-    private void fillChests() {
-        for (Point point : map.getCornicopiaChests()) {
-            tier2.fillChest((Chest) point.getLocation(world).getBlock().getState());
-        }
-        for (Point point : map.getTier2chests()) {
-            tier2.fillChest((Chest)point.getLocation(world).getBlock().getState());
-        }
-        for (Point point : map.getTier1chests()) {
-            tier1.fillChest((Chest)point.getLocation(world).getBlock().getState());
-        }
+        SGGameState next = state.afterTributeLoss(tributes.size());
+        if (next == null) return;
+        this.state = next;
+        updateState();
     }
 
     private void broadcastSound(Sound sound, Float pitch) {
-        for (CPlayer tribute : tributes) {
-            tribute.playSoundForPlayer(sound, 50f, pitch);
-        }
-        for (CPlayer spectator : spectators) {
-            spectator.playSoundForPlayer(sound, 50f, pitch);
-        }
-        for (WeakReference<CPlayer> cPlayerWeakReference : limbo) {
-            CPlayer player;
-            if ((player = cPlayerWeakReference.get()) != null) player.playSoundForPlayer(sound, 50f, pitch);
-        }
+        broadcast(null, sound, pitch);
     }
 
     private void broadcastMessage(String message) {
-        for (CPlayer tribute : tributes) {
-            tribute.sendMessage(message);
-        }
-        for (CPlayer spectator : spectators) {
-            spectator.sendMessage(message);
-        }
-        for (WeakReference<CPlayer> cPlayerWeakReference : limbo) {
-            CPlayer player;
-            if ((player = cPlayerWeakReference.get()) != null) player.sendMessage(message);
-        }
+        broadcast(message, null, null);
     }
 
-    private boolean eventAppliesTo(Event event, Set<CPlayer> set) {
-        if (event instanceof PlayerEvent) return set.contains(Core.getOnlinePlayer(((PlayerEvent) event).getPlayer()));
-        if (event instanceof BlockBreakEvent) return set.contains(Core.getOnlinePlayer(((BlockBreakEvent) event).getPlayer()));
-        if (event instanceof BlockPlaceEvent) return set.contains(Core.getOnlinePlayer(((BlockPlaceEvent) event).getPlayer()));
-        if (event instanceof HangingBreakByEntityEvent && ((HangingBreakByEntityEvent) event).getRemover() instanceof Player)
-            return set.contains(Core.getOnlinePlayer((Player) ((HangingBreakByEntityEvent) event).getRemover()));
-        return false;
+    private void broadcast(String message, Sound sound, Float pitch) {
+        audience.send(Audience.ALL, message, sound, pitch);
     }
 
-    private boolean eventAppliesToTributes(Event event) {
-        return eventAppliesTo(event, tributes);
+    /**
+     * @return The {@link RoleTable} flags of the player behind this event, or 0 if it has none.
+     */
+    private byte getRole(Event event) {
+        if (event instanceof PlayerEvent) return roles.get(((PlayerEvent) event).getPlayer());
+        if (event instanceof BlockBreakEvent) return roles.get(((BlockBreakEvent) event).getPlayer());
+        if (event instanceof BlockPlaceEvent) return roles.get(((BlockPlaceEvent) event).getPlayer());
+        if (event instanceof HangingBreakByEntityEvent && ((HangingBreakByEntityEvent) event).getRemover() instanceof Player)
+            return roles.get(((HangingBreakByEntityEvent) event).getRemover());
+        return 0;
     }
 
-    private boolean eventAppliesToSpectators(Event event) {
-        return eventAppliesTo(event, spectators);
+    private static boolean is(byte roles, byte role) {
+        return (roles & role) != 0;
     }
 
     void removeTribute(@NonNull CPlayer player) {
         if (!tributes.contains(player)) return;
         tributes.remove(player);
+        audience.invalidate();
+        journal.tributeRemoved(player.getUniqueIdentifier());
+        Player bukkitPlayer = player.getBukkitPlayer();
+        if (bukkitPlayer != null) roles.remove(bukkitPlayer, RoleTable.TRIBUTE);
         for (InventoryButton inventoryButton : spectatorGUI.getButtons()) {
             CPlayer cPlayer = ((TributeButton) inventoryButton).tribute.get();
             if (cPlayer == null) continue;
@@ -358,8 +332,10 @@ public final class SGGame implements Listener {
 
     public void makeSpectator(final CPlayer player) {
         spectators.add(player);
+        audience.invalidate();
         player.resetPlayer();
         Player bukkitPlayer = player.getBukkitPlayer();
+        roles.add(bukkitPlayer, RoleTable.SPECTATOR);
         bukkitPlayer.setAllowFlight(true);
         bukkitPlayer.setFlying(true);
         bukkitPlayer.setVelocity(new Vector(0, 2, 0));
@@ -375,19 +351,11 @@ public final class SGGame implements Listener {
             @Override
             public void run() {
                 Player bukkitPlayer2 = player.getBukkitPlayer();
-                for (CPlayer tribute : tributes) {
-                    tribute.getBukkitPlayer().hidePlayer(bukkitPlayer2);
-                }
-                for (CPlayer spectator : spectators) {
-                    Player bukkitPlayer1 = spectator.getBukkitPlayer();
-                    if (bukkitPlayer2.canSee(bukkitPlayer1)) bukkitPlayer2.hidePlayer(bukkitPlayer1);
-                    bukkitPlayer1.hidePlayer(bukkitPlayer2);
-                }
+                visibilityManager.setSpectator(player);
+                visibilityManager.apply();
                 try {
-                    Object handle = bukkitPlayer2.getClass().getMethod("getHandle").invoke(bukkitPlayer2);
-                    handle.getClass().getField("height").set(handle, 0f);
-                    handle.getClass().getField("width").set(handle, 0f);
-                    handle.getClass().getField("length").set(handle, 0f);
+                    float[] hitbox = setHitbox(bukkitPlayer2, new float[]{0f, 0f, 0f});
+                    if (!spectatorHitboxes.containsKey(player)) spectatorHitboxes.put(player, hitbox);
                 } catch (Exception e) {
                     plugin.logMessage(ChatColor.RED + "Unable to hide spectator from arrows!");
                     e.printStackTrace();
@@ -396,43 +364,81 @@ public final class SGGame implements Listener {
         }, 2L);
     }
 
+    /**
+     * @param hitbox The height, width and length to give the player.
+     * @return The height, width and length the player had before.
+     */
+    private static float[] setHitbox(Player player, float[] hitbox) throws ReflectiveOperationException {
+        Object handle = player.getClass().getMethod("getHandle").invoke(player);
+        String[] fields = {"height", "width", "length"};
+        float[] previous = new float[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Field field = handle.getClass().getField(fields[i]);
+            previous[i] = field.getFloat(handle);
+            field.setFloat(handle, hitbox[i]);
+        }
+        return previous;
+    }
+
+    /**
+     * Stops everything this game still has running and puts its players back the way they were, so that another game
+     * can be played on this server. Call this once the game is over.
+     */
+    void cleanUp() {
+        HandlerList.unregisterAll(this);
+        HandlerList.unregisterAll(spectatorInventory);
+        chestFiller.stop();
+        if (deathmatchCountdown != null && deathmatchCountdown.isRunning()) deathmatchCountdown.cancel();
+        if (stateCountdown != null && stateCountdown.isRunning()) stateCountdown.cancel();
+        for (Map.Entry<CPlayer, float[]> entry : spectatorHitboxes.entrySet()) {
+            if (!entry.getKey().isOnline()) continue;
+            try {
+                setHitbox(entry.getKey().getBukkitPlayer(), entry.getValue());
+            } catch (Exception e) {
+                plugin.logMessage(ChatColor.RED + "Unable to give a spectator their hitbox back!");
+                e.printStackTrace();
+            }
+        }
+        spectatorHitboxes.clear();
+        visibilityManager.showAll();
+    }
+
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerMove(PlayerMoveEvent event) {
-        CPlayer onlinePlayer1 = Core.getOnlinePlayer(event.getPlayer());
-        if (state == SGGameState.DEATHMATCH && eventAppliesToTributes(event)) {
-            if (!isWithinCornicopiaBuffer(Point.of(event.getTo()))) {
-                Long instant = timesStruckDeathmatch.get(onlinePlayer1);
-                if (instant == null || instant+2000 < System.currentTimeMillis()) {
-                    world.strikeLightningEffect(event.getTo());
-                    event.getPlayer().damage(6);
-                    onlinePlayer1.sendMessage(plugin.getFormat("return-to-corn"));
-                    timesStruckDeathmatch.put(onlinePlayer1, System.currentTimeMillis());
-                }
+        if (state != SGGameState.DEATHMATCH && state != SGGameState.PRE_GAME && state != SGGameState.PRE_DEATHMATCH_2) return;
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (state == SGGameState.DEATHMATCH) {
+            if (deathmatchBoundary.contains(to.getX(), to.getY(), to.getZ())) return;
+            if (!roles.has(event.getPlayer(), RoleTable.TRIBUTE)) return;
+            CPlayer onlinePlayer = Core.getOnlinePlayer(event.getPlayer());
+            Long instant = timesStruckDeathmatch.get(onlinePlayer);
+            if (instant == null || instant+2000 < System.currentTimeMillis()) {
+                world.strikeLightningEffect(to);
+                event.getPlayer().damage(6);
+                onlinePlayer.sendMessage(plugin.getFormat("return-to-corn"));
+                timesStruckDeathmatch.put(onlinePlayer, System.currentTimeMillis());
             }
             return;
         }
-        if (state != SGGameState.PRE_GAME && state != SGGameState.PRE_DEATHMATCH_2) return;
-        if (eventAppliesToSpectators(event)) return;
-        if (!eventAppliesToTributes(event)) return;
-        Point point = cornicopiaPoints.get(onlinePlayer1);
-        if (Math.abs(point.getX()-event.getTo().getX()) > 0.5 || Math.abs(point.getZ() - event.getTo().getZ()) > 0.5) {
+        //looking around is by far the most common move while frozen
+        if (from.getX() == to.getX() && from.getZ() == to.getZ()) return;
+        if (!roles.has(event.getPlayer(), RoleTable.TRIBUTE)) return;
+        CPlayer onlinePlayer = Core.getOnlinePlayer(event.getPlayer());
+        Point point = cornicopiaPoints.get(onlinePlayer);
+        if (point == null) return;
+        if (Math.abs(point.getX()-to.getX()) > 0.5 || Math.abs(point.getZ() - to.getZ()) > 0.5) {
             Location location = point.getLocation(world);
-            location.setPitch(event.getTo().getPitch());
-            location.setYaw(event.getTo().getYaw());
+            location.setPitch(to.getPitch());
+            location.setYaw(to.getYaw());
             event.getPlayer().teleport(location);
-            onlinePlayer1.playSoundForPlayer(Sound.CREEPER_HISS, 1f, 1.3f);
+            onlinePlayer.playSoundForPlayer(Sound.CREEPER_HISS, 1f, 1.3f);
         }
     }
 
-    private boolean isWithinCornicopiaBuffer(Point point) {
-        for (Point point1 : map.getCornicopiaSpawnPoints()) {
-            if (point.distanceSquared(point1) > getMaxCornDistanceSquared()) return false;
-        }
-        return true;
-    }
-
     @EventHandler
     public void onPlayerChat(AsyncPlayerChatEvent event) {
+        //this is not the main thread, so it can't probe the role table while it might be growing
         if (spectators.contains(Core.getOnlinePlayer(event.getPlayer()))) {
             event.setCancelled(true);
             event.getPlayer().sendMessage(plugin.getFormat("spectator-no-chat"));
@@ -443,9 +449,10 @@ public final class SGGame implements Listener {
     public void onPlayerDeath(EntityDeathEvent event) {
         if (!(event.getEntity() instanceof Player)) return;
         Player bukkitPlayer = (Player) event.getEntity();
+        byte role = roles.get(bukkitPlayer);
+        if (is(role, RoleTable.DEATH_PERK)) return;
+        if (!is(role, RoleTable.TRIBUTE)) return;
         CPlayer player = Core.getOnlinePlayer(bukkitPlayer);
-        if (deathPerkUsers.contains(player)) return;
-        if (!tributes.contains(player)) return;
         if (processedDeaths.contains(player)) return;
 
         //Stats, messages, sounds, and effects
@@ -460,11 +467,12 @@ public final class SGGame implements Listener {
 
         //INSERT HERE DEATH CREDIT THINGYS
         DeathPerk deathPerk = manager.getDeathPerkManager().get(player);
-        if (deathPerk != null && killer != null && !deathPerkUsers.contains(killer) && deathPerk.onDeath(this, player, killer) && (state == SGGameState.GAMEPLAY || state == SGGameState.PRE_DEATHMATCH_1)) {
+        if (deathPerk != null && killer != null && !roles.has(killer.getBukkitPlayer(), RoleTable.DEATH_PERK) && deathPerk.onDeath(this, player, killer) && (state == SGGameState.GAMEPLAY || state == SGGameState.PRE_DEATHMATCH_1)) {
             bukkitPlayer.setHealth(20);
             player.sendMessage(SurvivalGames.getInstance().getFormat("death-perk-use", new String[]{"<perk>", deathPerk.getName()}));
             killer.sendMessage(SurvivalGames.getInstance().getFormat("death-perk-use-other", new String[]{"<perk>", deathPerk.getName()}));
-            deathPerkUsers.add(player);
+            roles.add(bukkitPlayer, RoleTable.DEATH_PERK);
+            journal.deathPerkUsed(player.getUniqueIdentifier(), killer.getUniqueIdentifier(), deathPerk.getName());
             try {
                 manager.getDeathPerkManager().onUse(deathPerk, player);
             } catch (DatabaseConnectException e) {
@@ -511,6 +519,7 @@ public final class SGGame implements Listener {
 
     public void doAllDeath(CPlayer player, CPlayer killer) {
         processedDeaths.add(player);
+        journal.death(player.getUniqueIdentifier(), killer == null ? null : killer.getUniqueIdentifier());
         player.sendMessage(plugin.getFormat("you-died"));
         if (killer != null) doPvPDeath(player, killer);
         doPointsFor(player, killer);
@@ -531,23 +540,26 @@ public final class SGGame implements Listener {
     }
 
     public void revive(CPlayer player) {
-        deathPerkUsers.remove(player);
+        roles.remove(player.getBukkitPlayer(), RoleTable.DEATH_PERK);
         processedDeaths.remove(player);
+        journal.revived(player.getUniqueIdentifier());
         manager.getDeathPerkManager().unset(player);
         player.sendMessage(SurvivalGames.getInstance().getFormat("revived"));
     }
 
     private void playerDied(CPlayer player) {
         limbo.add(new WeakReference<>(player));
+        audience.invalidate();
+        roles.add(player.getBukkitPlayer(), RoleTable.LIMBO);
         removeTribute(player);
         Player bukkitPlayer = player.getBukkitPlayer();
-        bukkitPlayer.getWorld().strikeLightningEffect(bukkitPlayer.getLocation());
-        for (CPlayer tribute : tributes) {
-            tribute.getBukkitPlayer().playSound(bukkitPlayer.getLocation(), Sound.FIREWORK_LARGE_BLAST, 55f, 0.5f);
+        Location location = bukkitPlayer.getLocation();
+        location.getWorld().strikeLightningEffect(location);
+        for (CPlayer tribute : audience.get(Audience.TRIBUTES)) {
+            Player tributePlayer = tribute.getBukkitPlayer();
+            tributePlayer.playSound(location, Sound.FIREWORK_LARGE_BLAST, 55f, 0.5f);
             tribute.sendMessage(plugin.getFormat("death", new String[]{"<blocks>",
-                    String.valueOf(Math.ceil(tribute.getBukkitPlayer().getLocation().distance(bukkitPlayer.getLocation())))}));
-            //PERFORMANCE NOTE: SQUARE ROOT FUNCTION USED IN A LOOP
-            //¯\_(ツ)_/¯
+                    String.valueOf(Math.ceil(Math.sqrt(tributePlayer.getLocation().distanceSquared(location))))}));
         }
         incrementStat(Stat.DEATHS, player, 1);
         creditGameplay(player);
@@ -576,6 +588,8 @@ public final class SGGame implements Listener {
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         event.setQuitMessage(null);
+        visibilityManager.remove(Core.getOnlinePlayer(event.getPlayer()));
+        roles.clear(event.getPlayer());
     }
 
     @EventHandler
@@ -585,8 +599,9 @@ public final class SGGame implements Listener {
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent event) {
-        if (eventAppliesToSpectators(event)) event.setCancelled(true);
-        if (eventAppliesToTributes(event)) {
+        byte role = getRole(event);
+        if (is(role, RoleTable.SPECTATOR)) event.setCancelled(true);
+        if (is(role, RoleTable.TRIBUTE)) {
             switch (event.getBlock().getType()) {
                 case LEAVES:
                 case LEAVES_2:
@@ -623,8 +638,7 @@ public final class SGGame implements Listener {
     @EventHandler
     public void onHangingDestroy(HangingBreakByEntityEvent event) {
         if (event.getRemover() instanceof Player) {
-            CPlayer onlinePlayer = Core.getOnlinePlayer((Player) event.getRemover());
-            if (tributes.contains(onlinePlayer) || spectators.contains(onlinePlayer)) event.setCancelled(true);
+            if (is(getRole(event), (byte) (RoleTable.TRIBUTE | RoleTable.SPECTATOR))) event.setCancelled(true);
         } else event.setCancelled(true);
     }
 
@@ -644,8 +658,10 @@ public final class SGGame implements Listener {
             if (!cPlayer.equals(onlinePlayer)) continue;
             //Should respawn them in the same location they died in? TODO Test
             event.setRespawnLocation(event.getPlayer().getLocation());
+            roles.remove(event.getPlayer(), RoleTable.LIMBO);
             makeSpectator(onlinePlayer);
             iterator.remove();
+            audience.invalidate();
             ensureHiddenAndShown();
             return;
         }
@@ -653,11 +669,12 @@ public final class SGGame implements Listener {
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerInteract(PlayerInteractEvent event) {
-        if (eventAppliesToSpectators(event)) {
+        byte role = getRole(event);
+        if (is(role, RoleTable.SPECTATOR)) {
             event.setCancelled(true);
             return;
         }
-        if (!eventAppliesToTributes(event)) return;
+        if (!is(role, RoleTable.TRIBUTE)) return;
         if (state == SGGameState.PRE_DEATHMATCH_2 || state == SGGameState.PRE_GAME) {
             event.setCancelled(true);
             return;
@@ -681,13 +698,14 @@ public final class SGGame implements Listener {
         HumanEntity entity = event.getEntity();
         if (!(entity instanceof Player)) return;
         if (((Player) event.getEntity()).getFoodLevel()-event.getFoodLevel() < 0) return;
-        CPlayer onlinePlayer = Core.getOnlinePlayer((Player) entity);
-        if (spectators.contains(onlinePlayer)) event.setCancelled(true);
-        else if (tributes.contains(onlinePlayer)) {
+        byte role = roles.get(entity);
+        if (is(role, RoleTable.SPECTATOR)) event.setCancelled(true);
+        else if (is(role, RoleTable.TRIBUTE)) {
             if (state == SGGameState.PRE_GAME) {
                 event.setCancelled(true);
                 return;
             }
+            CPlayer onlinePlayer = Core.getOnlinePlayer((Player) entity);
             Integer integer = hungerFlags.get(onlinePlayer);
             if (integer == null) integer = 0;
             event.setCancelled(integer < 4);
@@ -702,8 +720,7 @@ public final class SGGame implements Listener {
     public void onPlayerDamage(EntityDamageEvent event) {
         Entity entity = event.getEntity();
         if (!(entity instanceof Player)) return;
-        CPlayer onlinePlayer = Core.getOnlinePlayer((Player) entity);
-        if (spectators.contains(onlinePlayer)) {
+        if (roles.has(entity, RoleTable.SPECTATOR)) {
             event.setCancelled(true);
         }
     }
@@ -717,19 +734,19 @@ public final class SGGame implements Listener {
             event.setCancelled(true);
             return;
         }
-        Player damager1 = (Player) damager;
-        if (spectators.contains(Core.getOnlinePlayer(damager1))) event.setCancelled(true);
-        if ((state == SGGameState.PRE_DEATHMATCH_2 || state == SGGameState.PRE_GAME) && tributes.contains(Core.getOnlinePlayer(damager1))) event.setCancelled(true);
+        byte role = roles.get(damager);
+        if (is(role, RoleTable.SPECTATOR)) event.setCancelled(true);
+        if ((state == SGGameState.PRE_DEATHMATCH_2 || state == SGGameState.PRE_GAME) && is(role, RoleTable.TRIBUTE)) event.setCancelled(true);
     }
 
     @EventHandler
     public void onPlayerDrop(PlayerDropItemEvent event) {
-        if (eventAppliesToSpectators(event)) event.setCancelled(true);
+        if (is(getRole(event), RoleTable.SPECTATOR)) event.setCancelled(true);
     }
 
     @EventHandler
     public void onPlayerPickup(PlayerPickupItemEvent event) {
-        if (!eventAppliesToTributes(event) && event.getItem().getLocation().getWorld().equals(world)) event.setCancelled(true);
+        if (!is(getRole(event), RoleTable.TRIBUTE) && event.getItem().getLocation().getWorld().equals(world)) event.setCancelled(true);
     }
 
     @EventHandler
@@ -772,35 +789,43 @@ public final class SGGame implements Listener {
     }
 
     private class PreDeathmatchCountdown extends TimerDelegateImplStateChange {
-        private final Integer[] broadcastSeconds = new Integer[]{60, 30, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
+        private final AnnouncementSchedule announcements;
+
         public PreDeathmatchCountdown(SGGameState state) {
             super(state);
+            announcements = new AnnouncementSchedule(AnnouncementSchedule.format("pre-deathmatch" + (state == SGGameState.PRE_DEATHMATCH_2 ? "-2" : ""), "<seconds>"), COUNTDOWN_SECONDS);
         }
 
         @Override
         protected void announceSecond(Integer second) {
-            if (!(RandomUtils.contains(broadcastSeconds, second))) return;
-            broadcastMessage(plugin.getFormat("pre-deathmatch" + (state == SGGameState.PRE_DEATHMATCH_2 ? "-2" : ""), new String[]{"<seconds>", String.valueOf(second)}));
-            broadcastSound(Sound.ORB_PICKUP, 1f - (second < 10 ? 0.05f * second : 0f));
+            String message = announcements.getMessage(second);
+            if (message == null) return;
+            broadcast(message, Sound.ORB_PICKUP, 1f - (second < 10 ? 0.05f * second : 0f));
         }
     }
 
     private class PreGameCountdown extends TimerDelegateImplStateChange {
-        private final Integer[] broadcastSeconds = new Integer[]{60, 30, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
+        private final AnnouncementSchedule announcements = new AnnouncementSchedule(AnnouncementSchedule.format("pre-game-countdown", "<seconds>"), COUNTDOWN_SECONDS);
+
         private PreGameCountdown() {
             super(SGGameState.GAMEPLAY);
         }
 
         @Override
         protected void announceSecond(Integer second) {
-            if (!RandomUtils.contains(broadcastSeconds, second)) return;
-            SGGame.this.broadcastMessage(SGGame.this.plugin.getFormat("pre-game-countdown", new String[]{"<seconds>", String.valueOf(second)}));
-            SGGame.this.broadcastSound(Sound.ORB_PICKUP, 1f - (second < 10 ? 0.05f * second : 0f));
+            String message = announcements.getMessage(second);
+            if (message == null) return;
+            SGGame.this.broadcast(message, Sound.ORB_PICKUP, 1f - (second < 10 ? 0.05f * second : 0f));
         }
     }
 
     private class GameplayTimeLimiter implements TimerDelegate {
-        private final Integer[] secondsToAnnounce = {1500, 900, 600, 300, 180, 120, 60, 30, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
+        private final AnnouncementSchedule announcements = new AnnouncementSchedule(new AnnouncementSchedule.Renderer() {
+            @Override
+            public String render(int second) {
+                return plugin.getFormat("gameplay-time", new String[]{"<time>", TimeUtils.formatDurationNicely(new Duration(second * 1000L))});
+            }
+        }, GAMEPLAY_SECONDS);
 
         @Override
         public void countdownStarted(Timer timer, Integer totalSeconds) {
@@ -821,9 +846,14 @@ public final class SGGame implements Listener {
 
         private void handleTime(Timer time) {
             if (time.getLength()-time.getSecondsPassed()%30 == 0) ensureHiddenAndShown();
-            if (!RandomUtils.contains(secondsToAnnounce, time.getLength()-time.getSecondsPassed())) return;
-            SGGame.this.broadcastMessage(plugin.getFormat("gameplay-time", new String[]{"<time>", TimeUtils.formatDurationNicely(time.getTimeRemaining())}));
-            SGGame.this.broadcastSound(Sound.NOTE_PLING, 0.7f);
+            Integer refilled = chestFiller.gameplaySecond(time.getSecondsPassed());
+            if (refilled != null) {
+                SGGame.this.broadcastMessage(plugin.getFormat("chests-refilled", new String[]{"<chests>", String.valueOf(refilled)}));
+                SGGame.this.broadcastSound(Sound.CHEST_OPEN, 1f);
+            }
+            String message = announcements.getMessage(time.getLength() - time.getSecondsPassed());
+            if (message == null) return;
+            SGGame.this.broadcast(message, Sound.NOTE_PLING, 0.7f);
         }
     }
 
@@ -902,6 +932,11 @@ public final class SGGame implements Listener {
     }
 
     private void ensureHiddenAndShown() {
+        visibilityManager.apply();
+    }
+
+    //teleporting everybody at once can leave tributes invisible to each other until they are resent
+    private void refreshTributeEntities() {
         List<Player> players = new ArrayList<>();
         for (CPlayer cPlayer : tributes) {
             players.add(cPlayer.getBukkitPlayer());
@@ -910,15 +945,7 @@ public final class SGGame implements Listener {
             players.add(spectator.getBukkitPlayer());
         }
         for (CPlayer tribute : tributes) {
-            Player bukkitPlayer = tribute.getBukkitPlayer();
-            for (CPlayer spectator : spectators) {
-                bukkitPlayer.hidePlayer(spectator.getBukkitPlayer());
-            }
-            for (CPlayer cPlayer : tributes) {
-                if (cPlayer.equals(tribute)) continue;
-                bukkitPlayer.showPlayer(cPlayer.getBukkitPlayer());
-            }
-            ProtocolLibrary.getProtocolManager().updateEntity(bukkitPlayer, players);
+            ProtocolLibrary.getProtocolManager().updateEntity(tribute.getBukkitPlayer(), players);
         }
     }
 }
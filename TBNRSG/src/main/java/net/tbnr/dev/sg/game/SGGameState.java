@@ -6,5 +6,14 @@ public enum SGGameState {
     PRE_DEATHMATCH_1,
     PRE_DEATHMATCH_2,
     DEATHMATCH,
-    POST_GAME
+    POST_GAME;
+
+    /**
+     * @return The state a game in this state moves to once it is down to this many tributes, or {@code null} if it stays.
+     */
+    public SGGameState afterTributeLoss(int tributesLeft) {
+        if (tributesLeft <= 1 && this != POST_GAME) return POST_GAME;
+        if (tributesLeft <= 4 && this == GAMEPLAY) return PRE_DEATHMATCH_1;
+        return null;
+    }
 }
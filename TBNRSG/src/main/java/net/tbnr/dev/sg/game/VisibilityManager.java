@@ -0,0 +1,128 @@
+package net.tbnr.dev.sg.game;
+
+import com.comphenix.protocol.ProtocolLibrary;
+import lombok.Getter;
+import net.cogzmc.core.player.CPlayer;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Decides who can see who in a game. Spectators are hidden from everybody, everyone else is visible. Every player gets
+ * an index for the game, and for each of them we keep a bitset of the players we have hidden from them, so a role
+ * change only costs the hide and show calls that actually change something.
+ */
+final class VisibilityManager {
+    private final Map<CPlayer, Integer> indexes = new HashMap<>();
+    private final List<CPlayer> players = new ArrayList<>();
+    private final List<BitSet> hidden = new ArrayList<>();
+    private final BitSet spectators = new BitSet();
+    /* players whose role changed, and players who have not been shown anything yet */
+    private final BitSet dirtyTargets = new BitSet();
+    private final BitSet dirtyViewers = new BitSet();
+
+    @Getter private long callsIssued = 0;
+    @Getter private long callsAvoided = 0;
+
+    void setTribute(CPlayer player) {
+        setSpectator(player, false);
+    }
+
+    void setSpectator(CPlayer player) {
+        setSpectator(player, true);
+    }
+
+    private void setSpectator(CPlayer player, boolean spectator) {
+        int index = getIndex(player);
+        if (spectators.get(index) == spectator) return;
+        spectators.set(index, spectator);
+        dirtyTargets.set(index);
+    }
+
+    /**
+     * Forgets a player who has left the game. Their index is not reused.
+     */
+    void remove(CPlayer player) {
+        Integer index = indexes.remove(player);
+        if (index == null) return;
+        players.set(index, null);
+        hidden.get(index).clear();
+        spectators.clear(index);
+        dirtyTargets.clear(index);
+        dirtyViewers.clear(index);
+        for (BitSet bitSet : hidden) {
+            bitSet.clear(index);
+        }
+    }
+
+    /**
+     * Shows everybody to everybody again, for when the game is over and its players stay on the server.
+     */
+    void showAll() {
+        spectators.clear();
+        dirtyViewers.set(0, players.size());
+        apply();
+    }
+
+    private int getIndex(CPlayer player) {
+        Integer index = indexes.get(player);
+        if (index != null) return index;
+        index = players.size();
+        indexes.put(player, index);
+        players.add(player);
+        hidden.add(new BitSet());
+        dirtyViewers.set(index);
+        return index;
+    }
+
+    /**
+     * Issues the hide and show calls needed to bring every player up to date with the roles set since the last call.
+     */
+    void apply() {
+        if (dirtyTargets.isEmpty() && dirtyViewers.isEmpty()) return;
+        int size = players.size();
+        Map<Player, List<Player>> shown = new HashMap<>();
+        for (int viewer = 0; viewer < size; viewer++) {
+            CPlayer viewerPlayer = players.get(viewer);
+            if (viewerPlayer == null || !viewerPlayer.isOnline()) continue;
+            //a new viewer has to be checked against everyone, the rest only against players whose role changed
+            BitSet targets = dirtyViewers.get(viewer) ? null : dirtyTargets;
+            int target = targets == null ? 0 : targets.nextSetBit(0);
+            while (target >= 0 && target < size) {
+                updatePair(viewer, viewerPlayer, target, shown);
+                target = targets == null ? target + 1 : targets.nextSetBit(target + 1);
+            }
+        }
+        dirtyTargets.clear();
+        dirtyViewers.clear();
+        for (Map.Entry<Player, List<Player>> entry : shown.entrySet()) {
+            ProtocolLibrary.getProtocolManager().updateEntity(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void updatePair(int viewer, CPlayer viewerPlayer, int target, Map<Player, List<Player>> shown) {
+        if (viewer == target) return;
+        CPlayer targetPlayer = players.get(target);
+        if (targetPlayer == null || !targetPlayer.isOnline()) return;
+        BitSet hiddenFromViewer = hidden.get(viewer);
+        boolean shouldHide = spectators.get(target);
+        if (hiddenFromViewer.get(target) == shouldHide) {
+            callsAvoided++;
+            return;
+        }
+        Player bukkitViewer = viewerPlayer.getBukkitPlayer();
+        Player bukkitTarget = targetPlayer.getBukkitPlayer();
+        if (shouldHide) bukkitViewer.hidePlayer(bukkitTarget);
+        else {
+            bukkitViewer.showPlayer(bukkitTarget);
+            List<Player> observers = shown.get(bukkitTarget);
+            if (observers == null) {
+                observers = new ArrayList<>();
+                shown.put(bukkitTarget, observers);
+            }
+            observers.add(bukkitViewer);
+        }
+        hiddenFromViewer.set(target, shouldHide);
+        callsIssued++;
+    }
+}
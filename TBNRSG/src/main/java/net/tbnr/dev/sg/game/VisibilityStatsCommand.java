@@ -0,0 +1,22 @@
+package net.tbnr.dev.sg.game;
+
+import net.cogzmc.core.modular.command.CommandException;
+import net.cogzmc.core.modular.command.ModuleCommand;
+import net.tbnr.dev.sg.SurvivalGames;
+import org.bukkit.command.CommandSender;
+
+public final class VisibilityStatsCommand extends ModuleCommand {
+    public VisibilityStatsCommand() {
+        super("visibility");
+    }
+
+    @Override
+    protected void handleCommandUnspecific(CommandSender sender, String[] args) throws CommandException {
+        SGGame runningGame = SurvivalGames.getInstance().getGameManager().getRunningGame();
+        if (runningGame == null) throw new CommandException("The game has not started!");
+        VisibilityManager visibilityManager = runningGame.getVisibilityManager();
+        sender.sendMessage(SurvivalGames.getInstance().getFormat("visibility-stats",
+                new String[]{"<issued>", String.valueOf(visibilityManager.getCallsIssued())},
+                new String[]{"<avoided>", String.valueOf(visibilityManager.getCallsAvoided())}));
+    }
+}
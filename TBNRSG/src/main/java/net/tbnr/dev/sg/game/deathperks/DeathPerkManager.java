@@ -120,6 +120,15 @@ public final class DeathPerkManager {
         chosenPerks.remove(player);
     }
 
+    /**
+     * Forgets every perk chosen for the last game, along with the menus that show them. Passes are only checked when a
+     * perk is chosen, so everyone has to choose again.
+     */
+    public void reset() {
+        chosenPerks.clear();
+        deathPerkInterfaces.clear();
+    }
+
     private class DeathPerkButton extends InventoryButton {
         private final DeathPerk perk;
 
@@ -0,0 +1,214 @@
+package net.tbnr.dev.sg.game.journal;
+
+import net.tbnr.dev.sg.SurvivalGames;
+import net.tbnr.dev.sg.game.SGGameState;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Collection;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * An append only record of what happened in a game, written to a memory mapped file so that recording something is only
+ * a copy into memory. The mapping is forced to disk every few seconds on another thread. The file can be read back by
+ * {@link JournalReplayer}.
+ *
+ * The file starts with a header (magic, version, wall clock start time), followed by records of the form
+ * {@code [short length][byte type][int millis since start][payload]}. A length of zero marks the end.
+ *
+ * All of the record methods must be called from the main thread.
+ */
+public final class GameJournal {
+    /* primitive so they are inlined, and the replayer never has to load this class */
+    final static int MAGIC = 0x53474A31;
+    final static byte VERSION = 1;
+    private final static Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private MappedByteBuffer buffer;
+    private final ByteBuffer record = ByteBuffer.allocate(2048);
+    private final Long startedAt = System.currentTimeMillis();
+    private BukkitTask flushTask;
+    private boolean full = false;
+
+    private GameJournal(File file, Integer size) throws IOException {
+        this.file = file;
+        if (file == null) return;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            //the mapping stays valid after the channel is closed
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(startedAt);
+        final MappedByteBuffer mapped = buffer;
+        long interval = SurvivalGames.getInstance().getConfig().getLong("journal.flush-seconds", 5) * 20;
+        flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(SurvivalGames.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                mapped.force();
+            }
+        }, interval, interval);
+    }
+
+    /**
+     * Opens a journal for a game on this map, or one that records nothing if journals are disabled or the file could
+     * not be created.
+     */
+    public static GameJournal open(String mapName) {
+        SurvivalGames plugin = SurvivalGames.getInstance();
+        if (!plugin.getConfig().getBoolean("journal.enabled", true)) return disabled();
+        File folder = new File(plugin.getDataFolder(), "journals");
+        if (!folder.exists() && !folder.mkdirs()) return disabled();
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "-" + mapName.replaceAll("[^A-Za-z0-9]", "") + ".sgj";
+        try {
+            return new GameJournal(new File(folder, name), plugin.getConfig().getInt("journal.size-kb", 1024) * 1024);
+        } catch (IOException e) {
+            plugin.logMessage(ChatColor.RED + "Unable to open the game journal " + name + "!");
+            e.printStackTrace();
+            return disabled();
+        }
+    }
+
+    private static GameJournal disabled() {
+        try {
+            return new GameJournal(null, 0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param seed The seed of the game's random, see {@link net.tbnr.dev.sg.game.GameManager#getSeed()}.
+     */
+    public void gameStarted(String mapName, Long seed, Collection<UUID> tributes) {
+        begin(JournalRecordType.GAME_START);
+        putString(mapName);
+        record.putLong(seed);
+        record.putShort((short) tributes.size());
+        for (UUID tribute : tributes) {
+            putUUID(tribute);
+        }
+        end();
+    }
+
+    public void stateChanged(SGGameState state) {
+        begin(JournalRecordType.STATE);
+        record.put((byte) state.ordinal());
+        end();
+    }
+
+    /**
+     * @param killer The killer, or {@code null} if there was none.
+     */
+    public void death(UUID dead, UUID killer) {
+        begin(JournalRecordType.DEATH);
+        putUUID(dead);
+        putOptionalUUID(killer);
+        end();
+    }
+
+    public void tributeRemoved(UUID tribute) {
+        begin(JournalRecordType.TRIBUTE_REMOVED);
+        putUUID(tribute);
+        end();
+    }
+
+    /**
+     * @param round 0 for the fill at the start of the game, and counting up for each refill.
+     * @param seed The seed of the {@link java.util.Random} the loot was rolled with.
+     */
+    public void chestsFilled(Integer round, Long seed, Integer chests) {
+        begin(JournalRecordType.CHESTS_FILLED);
+        record.putShort(round.shortValue());
+        record.putLong(seed);
+        record.putInt(chests);
+        end();
+    }
+
+    public void deathPerkUsed(UUID user, UUID killer, String perk) {
+        begin(JournalRecordType.DEATH_PERK);
+        putUUID(user);
+        putUUID(killer);
+        putString(perk);
+        end();
+    }
+
+    public void revived(UUID player) {
+        begin(JournalRecordType.REVIVE);
+        putUUID(player);
+        end();
+    }
+
+    /**
+     * @param winner The winner, or {@code null} if the game ended without one.
+     */
+    public void gameEnded(UUID winner) {
+        begin(JournalRecordType.GAME_END);
+        putOptionalUUID(winner);
+        end();
+    }
+
+    /**
+     * Stops recording and forces what was written to disk, off the main thread.
+     */
+    public void close() {
+        if (buffer == null) return;
+        final MappedByteBuffer mapped = buffer;
+        buffer = null;
+        flushTask.cancel();
+        Bukkit.getScheduler().runTaskAsynchronously(SurvivalGames.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                mapped.force();
+            }
+        });
+    }
+
+    private void begin(JournalRecordType type) {
+        record.clear();
+        record.putShort((short) 0);
+        record.put(type.id);
+        record.putInt((int) (System.currentTimeMillis() - startedAt));
+    }
+
+    private void end() {
+        if (buffer == null || full) return;
+        int length = record.position();
+        record.putShort(0, (short) length);
+        //always leave room for the zero length that ends the journal
+        if (buffer.remaining() < length + 2) {
+            full = true;
+            SurvivalGames.getInstance().logMessage(ChatColor.RED + "The game journal " + file.getName() + " is full, nothing more will be recorded!");
+            return;
+        }
+        buffer.put(record.array(), 0, length);
+    }
+
+    private void putUUID(UUID uuid) {
+        record.putLong(uuid.getMostSignificantBits());
+        record.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private void putOptionalUUID(UUID uuid) {
+        record.put((byte) (uuid == null ? 0 : 1));
+        if (uuid != null) putUUID(uuid);
+    }
+
+    private void putString(String string) {
+        byte[] bytes = string.getBytes(UTF_8);
+        int length = Math.min(bytes.length, 255);
+        record.putShort((short) length);
+        record.put(bytes, 0, length);
+    }
+}
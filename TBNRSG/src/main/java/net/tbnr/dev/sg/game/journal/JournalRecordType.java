@@ -0,0 +1,25 @@
+package net.tbnr.dev.sg.game.journal;
+
+public enum JournalRecordType {
+    GAME_START(1),
+    STATE(2),
+    DEATH(3),
+    TRIBUTE_REMOVED(4),
+    CHESTS_FILLED(5),
+    DEATH_PERK(6),
+    REVIVE(7),
+    GAME_END(8);
+
+    final byte id;
+
+    JournalRecordType(int id) {
+        this.id = (byte) id;
+    }
+
+    static JournalRecordType byId(byte id) {
+        for (JournalRecordType type : values()) {
+            if (type.id == id) return type;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+package net.tbnr.dev.sg.game.journal;
+
+import net.tbnr.dev.sg.game.SGGameState;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Reads a {@link GameJournal} back without a server, prints what happened, and runs the tributes through the same
+ * {@link SGGameState#afterTributeLoss(int)} rule the game uses, to check that every state change and the winner follow
+ * from what was recorded.
+ *
+ * Run with {@code java -cp TBNRSG.jar net.tbnr.dev.sg.game.journal.JournalReplayer <journal file>}.
+ */
+public final class JournalReplayer {
+    private final static Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+    private final List<String> problems = new ArrayList<>();
+    private final Set<UUID> tributes = new LinkedHashSet<>();
+    private SGGameState state = SGGameState.PRE_GAME;
+    /* a state change the rules say must be the next one recorded */
+    private SGGameState expectedState = null;
+    private UUID recordedWinner = null;
+    private boolean ended = false;
+
+    public JournalReplayer(byte[] journal) {
+        this.buffer = ByteBuffer.wrap(journal);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: JournalReplayer <journal file>");
+            System.exit(1);
+        }
+        JournalReplayer replayer = new JournalReplayer(Files.readAllBytes(new File(args[0]).toPath()));
+        List<String> problems = replayer.replay();
+        if (problems.isEmpty()) System.out.println("The journal is consistent.");
+        else {
+            System.out.println(problems.size() + " problem(s) found:");
+            for (String problem : problems) {
+                System.out.println(" - " + problem);
+            }
+            System.exit(2);
+        }
+    }
+
+    /**
+     * @return Everything that does not add up, empty if the journal is consistent.
+     */
+    public List<String> replay() {
+        if (buffer.remaining() < 13 || buffer.getInt() != GameJournal.MAGIC) {
+            problems.add("Not a game journal");
+            return problems;
+        }
+        byte version = buffer.get();
+        if (version != GameJournal.VERSION) {
+            problems.add("Unsupported journal version " + version);
+            return problems;
+        }
+        System.out.println("Game recorded at " + new Date(buffer.getLong()));
+        while (buffer.remaining() >= 2) {
+            int start = buffer.position();
+            int length = buffer.getShort();
+            if (length == 0) break;
+            JournalRecordType type = JournalRecordType.byId(buffer.get());
+            int time = buffer.getInt();
+            if (type == null) {
+                problems.add("Unknown record at byte " + start);
+            } else {
+                replay(type, time);
+            }
+            buffer.position(start + length);
+        }
+        if (!ended) problems.add("The journal ends before the game did");
+        else if (state != SGGameState.POST_GAME) problems.add("The game ended in " + state + " instead of POST_GAME");
+        UUID derivedWinner = tributes.size() == 1 ? tributes.iterator().next() : null;
+        if (ended && !Objects.equals(derivedWinner, recordedWinner))
+            problems.add("The recorded winner " + recordedWinner + " does not match the last tribute standing " + derivedWinner);
+        return problems;
+    }
+
+    private void replay(JournalRecordType type, int time) {
+        String prefix = String.format("[%02d:%02d.%03d] ", time / 60000, (time / 1000) % 60, time % 1000);
+        switch (type) {
+            case GAME_START:
+                String map = getString();
+                long gameSeed = buffer.getLong();
+                int count = buffer.getShort();
+                for (int i = 0; i < count; i++) {
+                    tributes.add(getUUID());
+                }
+                System.out.println(prefix + "Game started on " + map + " with " + count + " tributes, seed " + gameSeed);
+                break;
+            case STATE:
+                SGGameState recorded = SGGameState.values()[buffer.get()];
+                if (expectedState != null && recorded != expectedState)
+                    problems.add(prefix + "Expected the game to move to " + expectedState + " but it moved to " + recorded);
+                expectedState = null;
+                state = recorded;
+                System.out.println(prefix + "State " + recorded);
+                break;
+            case DEATH:
+                UUID dead = getUUID();
+                UUID killer = getOptionalUUID();
+                System.out.println(prefix + dead + (killer == null ? " died" : " was killed by " + killer));
+                break;
+            case TRIBUTE_REMOVED:
+                UUID tribute = getUUID();
+                if (!tributes.remove(tribute)) problems.add(prefix + tribute + " was removed but was not a tribute");
+                System.out.println(prefix + tribute + " is out, " + tributes.size() + " tributes remain");
+                SGGameState next = state.afterTributeLoss(tributes.size());
+                if (next != null) expectedState = next;
+                break;
+            case CHESTS_FILLED:
+                int round = buffer.getShort();
+                long seed = buffer.getLong();
+                int chests = buffer.getInt();
+                System.out.println(prefix + (round == 0 ? "Filled " : "Refill " + round + " filled ") + chests + " chests with seed " + seed);
+                break;
+            case DEATH_PERK:
+                UUID user = getUUID();
+                UUID perkKiller = getUUID();
+                System.out.println(prefix + user + " survived " + perkKiller + " with " + getString());
+                break;
+            case REVIVE:
+                System.out.println(prefix + getUUID() + " was revived");
+                break;
+            case GAME_END:
+                recordedWinner = getOptionalUUID();
+                ended = true;
+                System.out.println(prefix + "Game over, " + (recordedWinner == null ? "nobody won" : recordedWinner + " won"));
+                break;
+        }
+    }
+
+    private UUID getUUID() {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private UUID getOptionalUUID() {
+        return buffer.get() == 0 ? null : getUUID();
+    }
+
+    private String getString() {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
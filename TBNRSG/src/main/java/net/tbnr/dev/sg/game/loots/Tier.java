@@ -1,18 +1,19 @@
 package net.tbnr.dev.sg.game.loots;
 
 import lombok.Data;
-import net.cogzmc.core.Core;
-import net.cogzmc.util.RandomUtils;
 import org.bukkit.Material;
-import org.bukkit.block.Chest;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
+/**
+ * A loot table, compiled once from its JSON definition. Each entry's chance is used as its weight, and a chest never
+ * gets the same entry twice or two items in the same slot.
+ */
 @Data
 public final class Tier {
     private final static String ENTRIES = "entries";
@@ -23,14 +24,14 @@ public final class Tier {
     private final static String MIN = "min_items";
     private final static String MAX = "max_items";
 
-    private final Set<TierEntry> entrySet;
+    private final TierEntry[] entries;
+    private final float[] weights;
+    private final float totalWeight;
     private final Integer max;
     private final Integer min;
 
     public Tier(JSONObject object) {
-        this.min = ((Long) object.get(MIN)).intValue();
-        this.max = ((Long) object.get(MAX)).intValue();
-        Set<TierEntry> entries = new HashSet<>();
+        List<TierEntry> entries = new ArrayList<>();
         for (Object o : ((JSONArray) object.get(ENTRIES))) {
             if (!(o instanceof JSONObject)) continue;
             JSONObject jsonObject = (JSONObject)o;
@@ -43,31 +44,61 @@ public final class Tier {
             tierEntry.probability = jsonObject.containsKey(PROBABILITY) ? ((Double) jsonObject.get(PROBABILITY)).floatValue() : 1f;
             tierEntry.dataValue = jsonObject.containsKey(DATA_VALUE) ? ((Long) jsonObject.get(DATA_VALUE)).byteValue() : 0b0;
             tierEntry.quantity = jsonObject.containsKey(QUANTITY) ? ((Long)jsonObject.get(QUANTITY)).intValue() : 1;
+            //an entry that can never be picked would only slow down every draw
+            if (tierEntry.probability <= 0) continue;
             entries.add(tierEntry);
         }
-        this.entrySet = entries;
+        this.entries = entries.toArray(new TierEntry[entries.size()]);
+        this.weights = new float[this.entries.length];
+        float total = 0;
+        for (int i = 0; i < this.entries.length; i++) {
+            weights[i] = this.entries[i].probability;
+            total += weights[i];
+        }
+        this.totalWeight = total;
+        this.max = Math.min(((Long) object.get(MAX)).intValue(), this.entries.length);
+        this.min = Math.min(((Long) object.get(MIN)).intValue(), this.max);
     }
 
-    public void fillChest(Chest chest) {
-        Inventory inventory = chest.getInventory();
-        inventory.clear();
-        int mDelta = max - min;
-        int amt = min + Core.getRandom().nextInt(mDelta+1);
-        TierEntry[] tierEntries = entrySet.toArray(new TierEntry[entrySet.size()]);
-        TierEntry[] tierEntriesAdd = new TierEntry[amt];
-        for (int i = 0; i < amt; i++) {
-            TierEntry entry = null;
-            do {
-                TierEntry tierEntry = tierEntries[Core.getRandom().nextInt(tierEntries.length)];
-                if (RandomUtils.contains(tierEntriesAdd, tierEntry)) continue;
-                float v = Core.getRandom().nextFloat();
-                if (tierEntry.probability > v) entry = tierEntry;
-            } while (entry == null);
-            tierEntriesAdd[i] = entry;
+    /**
+     * Rolls the contents of a chest without touching the world, so it is safe to call off the main thread with a
+     * {@link Random} that is not shared.
+     *
+     * @param size The size of the inventory the contents are for.
+     * @return An array of {@code size} slots, with the rolled items at distinct random slots and nulls elsewhere.
+     */
+    public ItemStack[] generateContents(Random random, int size) {
+        ItemStack[] contents = new ItemStack[size];
+        int amount = Math.min(min + random.nextInt(max - min + 1), size);
+        float[] remaining = weights.clone();
+        float remainingWeight = totalWeight;
+        int[] slots = new int[size];
+        for (int i = 0; i < size; i++) slots[i] = i;
+        for (int i = 0; i < amount; i++) {
+            int picked = pick(remaining, random.nextFloat() * remainingWeight);
+            remainingWeight -= remaining[picked];
+            remaining[picked] = 0;
+            //partial shuffle, so every item lands in a slot no other item has taken
+            int slot = i + random.nextInt(size - i);
+            int chosen = slots[slot];
+            slots[slot] = slots[i];
+            slots[i] = chosen;
+            TierEntry entry = entries[picked];
+            contents[chosen] = new ItemStack(entry.material, entry.quantity, entry.dataValue);
         }
-        for (TierEntry tierEntry : tierEntriesAdd) {
-            inventory.setItem(Core.getRandom().nextInt(inventory.getSize()), new ItemStack(tierEntry.material, tierEntry.quantity, tierEntry.dataValue));
+        return contents;
+    }
+
+    private static int pick(float[] remaining, float target) {
+        int last = -1;
+        for (int i = 0; i < remaining.length; i++) {
+            if (remaining[i] == 0) continue;
+            last = i;
+            target -= remaining[i];
+            if (target < 0) return i;
         }
+        //float rounding can leave target a hair above the last weight
+        return last;
     }
 
     private static class TierEntry {
@@ -0,0 +1,77 @@
+package net.tbnr.dev.sg.game.map;
+
+import net.cogzmc.core.util.Point;
+
+import java.util.Collection;
+
+/**
+ * The space that is within reach of every one of a set of points, where the reach is the largest distance between two of
+ * the points plus a buffer. That is the intersection of a sphere around each point, so testing a location exactly takes
+ * one check per point.
+ *
+ * Two spheres around the centroid of the points let most locations skip that. Everything within the inner one is
+ * within reach of every point, and nothing outside the outer one can be, so only locations between the two are checked
+ * against every point.
+ */
+public final class ArenaBoundary {
+    private final double[] xs, ys, zs;
+    private final double reachSquared;
+    private final double centerX, centerY, centerZ;
+    private final double innerRadiusSquared;
+    private final double outerRadiusSquared;
+
+    private ArenaBoundary(Collection<Point> points, double buffer) {
+        if (points.isEmpty()) throw new IllegalArgumentException("You must specify at least one point!");
+        int size = points.size();
+        xs = new double[size];
+        ys = new double[size];
+        zs = new double[size];
+        double x = 0, y = 0, z = 0;
+        int i = 0;
+        for (Point point : points) {
+            xs[i] = point.getX();
+            ys[i] = point.getY();
+            zs[i] = point.getZ();
+            x += xs[i];
+            y += ys[i];
+            z += zs[i];
+            i++;
+        }
+        centerX = x / size;
+        centerY = y / size;
+        centerZ = z / size;
+        double maxDistanceSquared = 0, maxCenterDistanceSquared = 0;
+        for (i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                maxDistanceSquared = Math.max(maxDistanceSquared, distanceSquared(xs[i], ys[i], zs[i], xs[j], ys[j], zs[j]));
+            }
+            maxCenterDistanceSquared = Math.max(maxCenterDistanceSquared, distanceSquared(centerX, centerY, centerZ, xs[i], ys[i], zs[i]));
+        }
+        reachSquared = Math.ceil(maxDistanceSquared) + buffer * buffer;
+        double reach = Math.sqrt(reachSquared);
+        //no point is further than this from the center, so the reach minus it is in reach of every point
+        double innerRadius = Math.max(0, reach - Math.sqrt(maxCenterDistanceSquared));
+        innerRadiusSquared = innerRadius * innerRadius;
+        //the center is an average of the points, so it is never further from a location than the furthest point is
+        outerRadiusSquared = reachSquared;
+    }
+
+    public static ArenaBoundary around(Collection<Point> points, double buffer) {
+        return new ArenaBoundary(points, buffer);
+    }
+
+    public boolean contains(double x, double y, double z) {
+        double centerDistanceSquared = distanceSquared(centerX, centerY, centerZ, x, y, z);
+        if (centerDistanceSquared <= innerRadiusSquared) return true;
+        if (centerDistanceSquared > outerRadiusSquared) return false;
+        for (int i = 0; i < xs.length; i++) {
+            if (distanceSquared(xs[i], ys[i], zs[i], x, y, z) > reachSquared) return false;
+        }
+        return true;
+    }
+
+    private static double distanceSquared(double x1, double y1, double z1, double x2, double y2, double z2) {
+        double dX = x1 - x2, dY = y1 - y2, dZ = z1 - z2;
+        return dX * dX + dY * dY + dZ * dZ;
+    }
+}
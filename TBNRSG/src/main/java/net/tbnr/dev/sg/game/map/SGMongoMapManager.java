@@ -6,13 +6,13 @@ import com.mongodb.*;
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.Getter;
-import net.cogzmc.core.Core;
 import net.cogzmc.core.maps.CMap;
 import net.cogzmc.core.maps.CoreMaps;
 import net.cogzmc.core.player.mongo.CMongoDatabase;
 import net.cogzmc.core.util.Point;
 import net.tbnr.dev.sg.game.PreGameLobby;
 
+import java.nio.charset.Charset;
 import java.util.*;
 
 import static net.cogzmc.core.player.mongo.MongoUtils.getValueFrom;
@@ -23,10 +23,12 @@ public final class SGMongoMapManager {
 
     private final CMongoDatabase database;
     @Getter(AccessLevel.NONE) private final Set<SGMap> maps = new HashSet<>();
+    @Getter(AccessLevel.NONE) private final Map<SGMap, String> versions = new HashMap<>();
     private PreGameLobby preGameLobby;
 
     public void reloadMaps() {
         maps.clear();
+        versions.clear();
         DBCollection collection = database.getCollection(MAPS_COLLECTION);
         for (DBObject dbObject : collection.find()) {
             try {
@@ -37,6 +39,7 @@ public final class SGMongoMapManager {
                 SGMap sgMap = mapFromDB(dbObject);
                 if (sgMap == null) continue;
                 maps.add(sgMap);
+                versions.put(sgMap, versionOf(dbObject));
             } catch (Throwable t) {
                 t.printStackTrace();
                 continue;
@@ -51,7 +54,16 @@ public final class SGMongoMapManager {
 
     public void saveMap(SGMap map) {
         maps.add(map);
-        database.getCollection(MAPS_COLLECTION).save(objectFromMap(map));
+        DBObject object = objectFromMap(map);
+        versions.put(map, versionOf(object));
+        database.getCollection(MAPS_COLLECTION).save(object);
+    }
+
+    /**
+     * @return Something that changes whenever the map is saved again, so copies of the map made before can be told apart.
+     */
+    public String getVersion(SGMap map) {
+        return versions.get(map);
     }
 
     public void savePreGameLobby(PreGameLobby lobby) {
@@ -59,13 +71,13 @@ public final class SGMongoMapManager {
         database.getCollection(MAPS_COLLECTION).save(objectForPreGameLobby(lobby));
     }
 
-    public List<SGMap> getRandomMaps(Integer size) {
+    public List<SGMap> getRandomMaps(Integer size, Random random) {
         List<SGMap> maps = new ArrayList<>();
         ImmutableList<SGMap> maps1 = getMaps().asList();
         while (maps.size() < size) {
             SGMap map;
             do {
-                map = maps1.get(Core.getRandom().nextInt(maps1.size()));
+                map = maps1.get(random.nextInt(maps1.size()));
             } while (maps.contains(map));
             maps.add(map);
         }
@@ -89,7 +101,8 @@ public final class SGMongoMapManager {
         YAW,
         PRE_GAME_LOBBY_FLAG,
         PRE_GAME_SPAWN,
-        PRE_GAME_VILLAGER;
+        PRE_GAME_VILLAGER,
+        VERSION;
 
         @Override
         public String toString() {
@@ -123,9 +136,16 @@ public final class SGMongoMapManager {
         objectBuilder.add(SGMapKeys.TIER_2_CHESTS.toString(), getPointList(map.getTier2chests()));
         objectBuilder.add(SGMapKeys.CORNICOPIA_CHESTS.toString(), getPointList(map.getCornicopiaChests()));
         objectBuilder.add(SGMapKeys.DEATHMATCH_SPAWN.toString(), getPointList(map.getDeathmatchSpawn()));
+        objectBuilder.add(SGMapKeys.VERSION.toString(), UUID.randomUUID().toString());
         return objectBuilder.get();
     }
 
+    private static String versionOf(DBObject object) {
+        if (object.containsField(SGMapKeys.VERSION.toString())) return String.valueOf(object.get(SGMapKeys.VERSION.toString()));
+        //saved before maps had versions, any change to the document still changes this
+        return UUID.nameUUIDFromBytes(object.toString().getBytes(Charset.forName("UTF-8"))).toString();
+    }
+
     private static PreGameLobby gameLobbyFromDB(DBObject object) {
         CMap mapByID = CoreMaps.getInstance().getMapManager().getMapByID(UUID.fromString(getValueFrom(object, SGMapKeys.MAP_ID, String.class)));
         if (mapByID == null) return null;
@@ -0,0 +1,53 @@
+package net.tbnr.dev.sg.game.util;
+
+import net.tbnr.dev.sg.SurvivalGames;
+
+import java.util.BitSet;
+
+/**
+ * The seconds of a countdown that get announced, with the message for each of them rendered once up front. Checking a
+ * second is a bit lookup, and announcing it allocates nothing.
+ */
+public final class AnnouncementSchedule {
+    private final BitSet seconds = new BitSet();
+    private final String[] messages;
+
+    public AnnouncementSchedule(Renderer renderer, int... seconds) {
+        int max = 0;
+        for (int second : seconds) {
+            this.seconds.set(second);
+            max = Math.max(max, second);
+        }
+        messages = new String[max + 1];
+        for (int second : seconds) {
+            messages[second] = renderer.render(second);
+        }
+    }
+
+    public boolean contains(int second) {
+        return second >= 0 && seconds.get(second);
+    }
+
+    /**
+     * @return The message for this second, or {@code null} if it is not announced.
+     */
+    public String getMessage(int second) {
+        return contains(second) ? messages[second] : null;
+    }
+
+    /**
+     * A renderer for a format that takes the number of seconds left in the given placeholder.
+     */
+    public static Renderer format(final String key, final String placeholder) {
+        return new Renderer() {
+            @Override
+            public String render(int second) {
+                return SurvivalGames.getInstance().getFormat(key, new String[]{placeholder, String.valueOf(second)});
+            }
+        };
+    }
+
+    public interface Renderer {
+        String render(int second);
+    }
+}
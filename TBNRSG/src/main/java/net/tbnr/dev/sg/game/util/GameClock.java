@@ -0,0 +1,103 @@
+package net.tbnr.dev.sg.game.util;
+
+import lombok.Getter;
+import net.tbnr.dev.sg.SurvivalGames;
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one task that drives every {@link Timer}. Countdowns are measured against this clock's time rather than counted in
+ * ticks, so a server running behind does not stretch them; a late tick just delivers every second that has passed since
+ * the last one, in order.
+ *
+ * The clock can be paused, and moved forward, which is mostly useful for testing a game without waiting for it. Time is
+ * read from {@link System#nanoTime()}, so setting the system clock can neither end a countdown early nor stall one.
+ */
+public final class GameClock implements Runnable {
+    private final static TimeSource SYSTEM_TIME = new TimeSource() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    private final List<Timer> timers = new ArrayList<>();
+    private final TimeSource source;
+    /* added to the source's time while running, so pauses and fast forwards shift our time relative to it */
+    private Long offset = 0L;
+    @Getter private boolean paused = false;
+    private Long pausedAt;
+
+    public GameClock() {
+        this(SYSTEM_TIME);
+    }
+
+    public GameClock(TimeSource source) {
+        this.source = source;
+    }
+
+    public void start() {
+        Bukkit.getScheduler().runTaskTimer(SurvivalGames.getInstance(), this, 1L, 1L);
+    }
+
+    /**
+     * @return The current time on this clock, in milliseconds.
+     */
+    public Long now() {
+        return paused ? pausedAt : sourceMillis() + offset;
+    }
+
+    public void pause() {
+        if (paused) return;
+        pausedAt = now();
+        paused = true;
+    }
+
+    public void resume() {
+        if (!paused) return;
+        offset = pausedAt - sourceMillis();
+        paused = false;
+    }
+
+    /**
+     * Moves the clock forward, and immediately delivers every countdown second that moves past.
+     */
+    public void fastForward(Long millis) {
+        if (paused) pausedAt += millis;
+        else offset += millis;
+        run();
+    }
+
+    private long sourceMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(source.nanoTime());
+    }
+
+    void register(Timer timer) {
+        timers.add(timer);
+    }
+
+    @Override
+    public void run() {
+        Long now = now();
+        //by index, a countdown that ends here often starts the next one
+        for (int i = 0; i < timers.size(); i++) {
+            timers.get(i).advanceTo(now);
+        }
+        //cancelled countdowns are dropped here too
+        Iterator<Timer> iterator = timers.iterator();
+        while (iterator.hasNext()) {
+            if (!iterator.next().isRunning()) iterator.remove();
+        }
+    }
+
+    /**
+     * Where the clock reads the time from, in nanoseconds from an arbitrary origin like {@link System#nanoTime()}.
+     */
+    public static interface TimeSource {
+        long nanoTime();
+    }
+}
@@ -2,37 +2,50 @@ package net.tbnr.dev.sg.game.util;
 
 import lombok.Data;
 import net.tbnr.dev.sg.SurvivalGames;
-import org.bukkit.Bukkit;
-import org.bukkit.scheduler.BukkitTask;
 import org.joda.time.Duration;
 
 @Data
-public final class Timer implements Runnable {
+public final class Timer {
     private final Integer length;
     private final TimerDelegate delegate;
+    private final GameClock clock;
 
     private Integer secondsPassed;
-    private BukkitTask task;
+    private Long startedAt;
+    private boolean running = false;
+
+    public Timer(Integer length, TimerDelegate delegate) {
+        this(length, delegate, SurvivalGames.getInstance().getGameClock());
+    }
+
+    public Timer(Integer length, TimerDelegate delegate, GameClock clock) {
+        this.length = length;
+        this.delegate = delegate;
+        this.clock = clock;
+    }
 
     public Timer start() {
-        if (task != null) throw new IllegalStateException("The countdown is already running!");
+        if (running) throw new IllegalStateException("The countdown is already running!");
         secondsPassed = 0;
-        task = Bukkit.getScheduler().runTaskLater(SurvivalGames.getInstance(), this, 20L);
+        startedAt = clock.now();
+        running = true;
+        clock.register(this);
         delegate.countdownStarted(this, length);
         return this;
     }
 
-    @Override
-    public void run() {
-        secondsPassed++;
-        if (secondsPassed >= length) {
-            delegate.countdownEnded(this, length);
-            task.cancel();
-            task = null;
-        }
-        else {
-            delegate.countdownChanged(this, secondsPassed, length);
-            task = Bukkit.getScheduler().runTaskLater(SurvivalGames.getInstance(), this, 20L);
+    /**
+     * Delivers every second that has passed up to this time on the {@link GameClock}.
+     */
+    void advanceTo(Long now) {
+        long due = Math.min(length, (now - startedAt) / 1000);
+        while (running && secondsPassed < due) {
+            secondsPassed++;
+            if (secondsPassed >= length) {
+                running = false;
+                delegate.countdownEnded(this, length);
+            }
+            else delegate.countdownChanged(this, secondsPassed, length);
         }
     }
 
@@ -41,9 +54,6 @@ public final class Timer implements Runnable {
     }
 
     public void cancel() {
-        if (task != null) task.cancel();
-        task = null;
+        running = false;
     }
-
-    public boolean isRunning() { return task != null; }
 }
@@ -0,0 +1,56 @@
+package net.tbnr.dev.sg.game.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Copies and deletes world folders. None of this touches Bukkit, so it can run on any thread.
+ */
+public final class WorldFolders {
+    /* Bukkit refuses to load two worlds with the same uid, and the lock belongs to whoever had the world open */
+    private final static String[] SKIPPED = {"uid.dat", "session.lock"};
+
+    private WorldFolders() {}
+
+    public static void copy(File from, File to) throws IOException {
+        final Path source = from.toPath();
+        final Path target = to.toPath();
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String name = file.getFileName().toString();
+                for (String skipped : SKIPPED) {
+                    if (skipped.equals(name)) return FileVisitResult.CONTINUE;
+                }
+                Files.copy(file, target.resolve(source.relativize(file)), StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    public static void delete(File folder) throws IOException {
+        if (!folder.exists()) return;
+        Files.walkFileTree(folder.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) throw exc;
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package net.tbnr.dev.sg.game.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public final class TimerTest {
+    private FakeTimeSource time;
+    private GameClock clock;
+    private RecordingDelegate delegate;
+
+    @Before
+    public void setUp() {
+        time = new FakeTimeSource();
+        clock = new GameClock(time);
+        delegate = new RecordingDelegate();
+    }
+
+    @Test
+    public void deliversEverySecondOfALaggedTickInOrder() {
+        new Timer(5, delegate, clock).start();
+        time.advance(3500);
+        clock.run();
+        assertEquals(Arrays.asList("started 5", "changed 1", "changed 2", "changed 3"), delegate.events);
+        time.advance(400);
+        clock.run();
+        assertEquals(4, delegate.events.size());
+    }
+
+    @Test
+    public void endsOnceWhenALaggedTickPassesTheEnd() {
+        Timer timer = new Timer(3, delegate, clock).start();
+        time.advance(10000);
+        clock.run();
+        clock.run();
+        assertEquals(Arrays.asList("started 3", "changed 1", "changed 2", "ended 3"), delegate.events);
+        assertFalse(timer.isRunning());
+    }
+
+    @Test
+    public void standsStillWhilePaused() {
+        new Timer(10, delegate, clock).start();
+        time.advance(2000);
+        clock.run();
+        clock.pause();
+        time.advance(30000);
+        clock.run();
+        assertEquals(Arrays.asList("started 10", "changed 1", "changed 2"), delegate.events);
+        clock.resume();
+        time.advance(1000);
+        clock.run();
+        assertEquals(Arrays.asList("started 10", "changed 1", "changed 2", "changed 3"), delegate.events);
+    }
+
+    @Test
+    public void fastForwardDeliversTheSecondsItSkips() {
+        new Timer(5, delegate, clock).start();
+        clock.fastForward(2000L);
+        assertEquals(Arrays.asList("started 5", "changed 1", "changed 2"), delegate.events);
+    }
+
+    @Test
+    public void fastForwardPastTheEndEndsTheCountdownOnce() {
+        Timer timer = new Timer(3, delegate, clock).start();
+        clock.fastForward(60000L);
+        time.advance(60000);
+        clock.run();
+        assertEquals(Arrays.asList("started 3", "changed 1", "changed 2", "ended 3"), delegate.events);
+        assertFalse(timer.isRunning());
+    }
+
+    @Test
+    public void fastForwardWhilePausedIsKeptAfterResuming() {
+        new Timer(10, delegate, clock).start();
+        clock.pause();
+        clock.fastForward(3000L);
+        clock.resume();
+        clock.run();
+        assertEquals(Arrays.asList("started 10", "changed 1", "changed 2", "changed 3"), delegate.events);
+    }
+
+    @Test
+    public void cancelledCountdownsStopReceivingSeconds() {
+        Timer timer = new Timer(10, delegate, clock).start();
+        time.advance(1000);
+        clock.run();
+        timer.cancel();
+        time.advance(5000);
+        clock.run();
+        assertEquals(Arrays.asList("started 10", "changed 1"), delegate.events);
+    }
+
+    private static final class FakeTimeSource implements GameClock.TimeSource {
+        /* far from zero, like System.nanoTime(), which has an arbitrary origin */
+        private long nanos = 1234567890123L;
+
+        private void advance(long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+    }
+
+    private static final class RecordingDelegate implements TimerDelegate {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void countdownStarted(Timer timer, Integer totalSeconds) {
+            events.add("started " + totalSeconds);
+        }
+
+        @Override
+        public void countdownEnded(Timer timer, Integer totalSeconds) {
+            events.add("ended " + totalSeconds);
+        }
+
+        @Override
+        public void countdownChanged(Timer timer, Integer secondsPassed, Integer totalSeconds) {
+            events.add("changed " + secondsPassed);
+        }
+    }
+}